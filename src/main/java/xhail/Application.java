@@ -18,7 +18,9 @@ import xhail.core.Config;
 import xhail.core.Dialler;
 import xhail.core.Finder;
 import xhail.core.Logger;
+import xhail.core.Scorer;
 import xhail.core.Utils;
+import xhail.core.Worker;
 import xhail.core.entities.Answers;
 import xhail.core.entities.Problem;
 
@@ -73,6 +75,17 @@ public class Application implements Callable<Answers> {
 					case "--debug":
 						builder.setDebug(true);
 						break;
+					case "-x":
+					case "--depth":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setDepth(args[++i]);
+						break;
+					case "-e":
+					case "--eager":
+						builder.setEager(true);
+						break;
 					case "-f":
 					case "--full":
 						builder.setFull(true);
@@ -88,6 +101,10 @@ public class Application implements Callable<Answers> {
 					case "--help":
 						builder.setHelp(true);
 						break;
+					case "-y":
+					case "--heuristic":
+						builder.setHeuristic(true);
+						break;
 					case "-i":
 					case "--iter":
 						if (args.length - i <= 1)
@@ -95,6 +112,13 @@ public class Application implements Callable<Answers> {
 						else
 							builder.setIterations(args[++i]);
 						break;
+					case "-j":
+					case "--threads":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setThreads(args[++i]);
+						break;
 					case "-k":
 					case "--kill":
 						if (args.length - i <= 1)
@@ -102,14 +126,32 @@ public class Application implements Callable<Answers> {
 						else
 							builder.setKill(args[++i]);
 						break;
+					case "-l":
+					case "--lean":
+						builder.setLean(true);
+						break;
 					case "-m":
 					case "--mute":
 						builder.setMute(true);
 						break;
+					case "-n":
+					case "--shards":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setShards(args[++i]);
+						break;
 					case "-o":
 					case "--output":
 						builder.setOutput(true);
 						break;
+					case "-q":
+					case "--portfolio":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setPortfolio(args[++i]);
+						break;
 					case "-p":
 					case "--prettify":
 						builder.setPrettify(true);
@@ -128,10 +170,35 @@ public class Application implements Callable<Answers> {
 						// }
 						// }
 						break;
+					case "-u":
+					case "--reduce":
+						builder.setReduce(true);
+						break;
+					case "-z":
+					case "--resume":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setResume(args[++i]);
+						break;
+					case "-r":
+					case "--reuse":
+						builder.setReuse(true);
+						break;
+					case "-w":
+					case "--sample":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setSample(args[++i]);
+						break;
 					case "-s":
 					case "--search":
 						builder.setSearch(true);
 						break;
+					case "--slice":
+						builder.setSlice(true);
+						break;
 					case "-t":
 					case "--terminate":
 						builder.setTerminate(true);
@@ -140,6 +207,24 @@ public class Application implements Callable<Answers> {
 					case "--version":
 						builder.setVersion(true);
 						break;
+					case "--score":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.addScore(args[++i]);
+						break;
+					case "--serve":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setServe(args[++i]);
+						break;
+					case "--workers":
+						if (args.length - i <= 1)
+							builder.missingParameter();
+						else
+							builder.setWorkers(args[++i]);
+						break;
 
 					default:
 						builder.addSource(args[i]);
@@ -193,6 +278,12 @@ public class Application implements Callable<Answers> {
 			}
 		}
 
+		// workers only solve the programs they are sent
+		if (null != config.getServe()) {
+			this.problem = null;
+			return;
+		}
+
 		Problem.Builder problem = new Problem.Builder(config);
 		if (config.hasSources())
 			for (Path path : config.getSources()) {
@@ -217,7 +308,9 @@ public class Application implements Callable<Answers> {
 	 * 
 	 */
 	public void execute() {
-		if (config.isPrettify()) {
+		if (null != config.getServe())
+			new Worker(config).serve();
+		else if (config.isPrettify()) {
 			System.out.println();
 			Utils.dump(problem, System.err);
 			// int index = config.getIndex();
@@ -246,6 +339,10 @@ public class Application implements Callable<Answers> {
 				final Future<Answers> task = service.submit(this);
 				Answers answers = kill > 0L ? task.get(kill, TimeUnit.SECONDS) : task.get();
 				Logger.stamp(answers);
+				// learned hypotheses are scored on the test sets without clasp
+				if (config.hasScores())
+					for (int id = 1; id <= (config.isAll() ? answers.size() : Math.min(1, answers.size())); id++)
+						Logger.stamp(config, id, new Scorer.Builder(problem).addClauses(answers.getAnswer(id - 1).getHypotheses()).build().score(config.getScores()));
 			} catch (CancellationException e) {
 				Logger.message(String.format("*** Info  (%s): computation was cancelled", Logger.SIGNATURE));
 			} catch (ExecutionException e) {
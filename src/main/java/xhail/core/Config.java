@@ -3,10 +3,16 @@
  */
 package xhail.core;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * @author stefano
@@ -20,20 +26,67 @@ public class Config {
 		private boolean blind = false;
 		private Path clasp = null;
 		private boolean debug = false;
+		private int depth = 0;
+		private boolean eager = false;
 		String errors = "";
 		private boolean full = false;
 		private Path gringo = null;
 		private boolean help = false;
+		private boolean heuristic = false;
 		private int iterations = 0;
 		private long kill = 0L;
+		private boolean lean = false;
 		private boolean mute = false;
 		private boolean output = false;
+		private int portfolio = 0;
 		private boolean prettify = false;
+		private boolean reduce = false;
+		private Path resume = null;
+		private boolean reuse = false;
+		private int sample = 0;
+		private List<Path> scores = new ArrayList<>();
 		private boolean search = false;
+		private String secret = System.getenv(SECRET);
+		private InetSocketAddress serve = null;
+		private int shards = 0;
+		private boolean slice = false;
 		private LinkedHashSet<Path> sources = new LinkedHashSet<>();
 		private boolean terminate = false;
+		private int threads = 0;
 
 		private boolean version = false;
+		private List<InetSocketAddress> workers = new ArrayList<>();
+
+		/**
+		 * Returns the address in a <code>[host:]port</code> string, on the
+		 * loopback interface unless a host is given, or <code>null</code> if
+		 * it is not valid.
+		 */
+		private static InetSocketAddress address(String source) {
+			if (null == source)
+				return null;
+			int colon = source.lastIndexOf(':');
+			try {
+				int port = Integer.parseUnsignedInt(source.substring(1 + colon).trim());
+				if (port > 65535)
+					return null;
+				String host = colon < 0 ? "" : source.substring(0, colon).trim();
+				return host.isEmpty() ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : InetSocketAddress.createUnresolved(host, port);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		public Builder addScore(String score) {
+			if (null == score)
+				throw new IllegalArgumentException("Illegal 'score' argument in Application.Builder.addScore(String): " + score);
+			Path temp = Paths.get(score);
+			if (Files.exists(temp) && !Files.isDirectory(temp))
+				scores.add(temp);
+			else
+				errors += String.format("  test set '%s' cannot be accessed\n", score);
+			return this;
+		}
 
 		public Builder addSource(String source) {
 			if (null == source)
@@ -50,6 +103,8 @@ public class Config {
 
 		@Override
 		public Config build() {
+			if ((null != serve || !workers.isEmpty()) && (null == secret || secret.isEmpty()))
+				errors += String.format("  a shared secret in '%s' is needed to serve or ship clasp calls\n", SECRET);
 			if (!errors.isEmpty())
 				Logger.error("errors found:\n" + errors);
 			return new Config(this);
@@ -94,6 +149,20 @@ public class Config {
 			return this;
 		}
 
+		public Builder setDepth(String depth) {
+			try {
+				this.depth = Integer.parseUnsignedInt(depth);
+			} catch (NullPointerException | NumberFormatException e) {
+				errors += String.format("  '%s' is not a valid kernel depth\n", depth);
+			}
+			return this;
+		}
+
+		public Builder setEager(boolean eager) {
+			this.eager = eager;
+			return this;
+		}
+
 		public Builder setFull(boolean full) {
 			this.full = full;
 			return this;
@@ -111,6 +180,11 @@ public class Config {
 			return this;
 		}
 
+		public Builder setHeuristic(boolean heuristic) {
+			this.heuristic = heuristic;
+			return this;
+		}
+
 		public Builder setIterations(String iterations) {
 			try {
 				this.iterations = Integer.parseUnsignedInt(iterations);
@@ -129,6 +203,11 @@ public class Config {
 			return this;
 		}
 
+		public Builder setLean(boolean lean) {
+			this.lean = lean;
+			return this;
+		}
+
 		public Builder setMute(boolean mute) {
 			this.mute = mute;
 			return this;
@@ -139,28 +218,118 @@ public class Config {
 			return this;
 		}
 
+		public Builder setPortfolio(String portfolio) {
+			try {
+				this.portfolio = Integer.parseUnsignedInt(portfolio);
+			} catch (NullPointerException | NumberFormatException e) {
+				errors += String.format("  '%s' is not a valid number of configurations\n", portfolio);
+			}
+			return this;
+		}
+
 		public Builder setPrettify(boolean prettify) {
 			this.prettify = prettify;
 			return this;
 		}
 
+		public Builder setReduce(boolean reduce) {
+			this.reduce = reduce;
+			return this;
+		}
+
+		public Builder setResume(String resume) {
+			if (null == resume || (resume = resume.trim()).isEmpty())
+				throw new IllegalArgumentException("Illegal 'resume' argument in Application.Builder.setResume(String): " + resume);
+			this.resume = Paths.get(resume);
+			return this;
+		}
+
+		public Builder setReuse(boolean reuse) {
+			this.reuse = reuse;
+			return this;
+		}
+
+		public Builder setSample(String sample) {
+			try {
+				this.sample = Integer.parseUnsignedInt(sample);
+			} catch (NullPointerException | NumberFormatException e) {
+				errors += String.format("  '%s' is not a valid number of models\n", sample);
+			}
+			return this;
+		}
+
 		public Builder setSearch(boolean search) {
 			this.search = search;
 			return this;
 		}
 
+		public Builder setSecret(String secret) {
+			if (null == secret || secret.isEmpty())
+				throw new IllegalArgumentException("Illegal 'secret' argument in Application.Builder.setSecret(String): " + secret);
+			this.secret = secret;
+			return this;
+		}
+
+		public Builder setServe(String serve) {
+			this.serve = address(serve);
+			if (null == this.serve)
+				errors += String.format("  '%s' is not a valid address to serve on\n", serve);
+			return this;
+		}
+
+		public Builder setShards(String shards) {
+			try {
+				this.shards = Integer.parseUnsignedInt(shards);
+			} catch (NullPointerException | NumberFormatException e) {
+				errors += String.format("  '%s' is not a valid number of shards\n", shards);
+			}
+			return this;
+		}
+
+		public Builder setSlice(boolean slice) {
+			this.slice = slice;
+			return this;
+		}
+
 		public Builder setTerminate(boolean terminate) {
 			this.terminate = terminate;
 			return this;
 		}
 
+		public Builder setThreads(String threads) {
+			try {
+				this.threads = Integer.parseUnsignedInt(threads);
+			} catch (NullPointerException | NumberFormatException e) {
+				errors += String.format("  '%s' is not a valid number of threads\n", threads);
+			}
+			return this;
+		}
+
 		public Builder setVersion(boolean version) {
 			this.version = version;
 			return this;
 		}
 
+		public Builder setWorkers(String workers) {
+			if (null == workers)
+				workers = "";
+			for (String worker : workers.split(",")) {
+				InetSocketAddress address = address(worker);
+				if (null == address || worker.indexOf(':') < 0 || address.getAddress() != null && address.getAddress().isAnyLocalAddress())
+					errors += String.format("  '%s' is not a valid worker address\n", worker);
+				else
+					this.workers.add(address);
+			}
+			return this;
+		}
+
 	}
 
+	/**
+	 * Environment variable holding the secret shared with the workers.
+	 */
+	public static final String SECRET = "XHAIL_SECRET";
+
 	private final boolean all;
 
 	private final boolean blind;
@@ -169,32 +338,64 @@ public class Config {
 
 	private final boolean debug;
 
+	private final int depth;
+
+	private final boolean eager;
+
 	private final boolean full;
 
 	private Path gringo;
 
 	private final boolean help;
 
+	private final boolean heuristic;
+
 	private final int iterations;
 
 	private final long kill;
 
+	private final boolean lean;
+
 	private final boolean mute;
 
 	private final String name;
 
 	private final boolean output;
 
+	private final int portfolio;
+
 	private final boolean prettify;
 
+	private final boolean reduce;
+
+	private final Path resume;
+
+	private final boolean reuse;
+
+	private final int sample;
+
+	private final List<Path> scores;
+
 	private final boolean search;
 
+	private final byte[] secret;
+
+	private final InetSocketAddress serve;
+
+	private final int shards;
+
+	private final boolean slice;
+
 	private final Path[] sources;
 
 	private final boolean terminate;
 
+	private final int threads;
+
 	private final boolean version;
 
+	private final List<InetSocketAddress> workers;
+
 	private Config(Builder builder) {
 		if (null == builder)
 			throw new IllegalArgumentException("Illegal 'builder' argument in Application(Application.Builder): " + builder);
@@ -202,11 +403,15 @@ public class Config {
 		this.blind = builder.blind;
 		this.clasp = builder.clasp;
 		this.debug = builder.debug;
+		this.depth = builder.depth;
+		this.eager = builder.eager;
 		this.full = builder.full;
 		this.gringo = builder.gringo;
 		this.iterations = builder.iterations;
 		this.help = builder.help;
+		this.heuristic = builder.heuristic;
 		this.kill = builder.kill;
+		this.lean = builder.lean;
 		String name = "stdin";
 		if (builder.sources.size() > 0) {
 			name = builder.sources.iterator().next().getFileName().toString();
@@ -219,17 +424,33 @@ public class Config {
 		this.mute = builder.mute;
 		this.name = name;
 		this.output = builder.output;
+		this.portfolio = builder.portfolio;
 		this.prettify = builder.prettify;
+		this.reduce = builder.reduce;
+		this.resume = builder.resume;
+		this.reuse = builder.reuse;
+		this.sample = builder.sample;
+		this.scores = builder.scores;
 		this.search = builder.search;
+		this.secret = null == builder.secret ? null : builder.secret.getBytes(StandardCharsets.UTF_8);
+		this.serve = builder.serve;
+		this.shards = builder.shards;
+		this.slice = builder.slice;
 		this.sources = builder.sources.toArray(new Path[builder.sources.size()]);
 		this.terminate = builder.terminate;
+		this.threads = builder.threads;
 		this.version = builder.version;
+		this.workers = builder.workers;
 	}
 
 	public Path getClasp() {
 		return clasp;
 	}
 
+	public final int getDepth() {
+		return depth;
+	}
+
 	public Path getGringo() {
 		return gringo;
 	}
@@ -246,10 +467,54 @@ public class Config {
 		return name;
 	}
 
+	public final int getPortfolio() {
+		return portfolio;
+	}
+
+	public Path getResume() {
+		return resume;
+	}
+
+	public final int getSample() {
+		return sample;
+	}
+
+	public final List<Path> getScores() {
+		return Collections.unmodifiableList(scores);
+	}
+
+	public final int getShards() {
+		return shards;
+	}
+
 	public final Path[] getSources() {
 		return sources;
 	}
 
+	/**
+	 * Returns the secret shared by the workers and the instances shipping
+	 * calls to them, never printed.
+	 */
+	final byte[] getSecret() {
+		return secret;
+	}
+
+	public final InetSocketAddress getServe() {
+		return serve;
+	}
+
+	public final int getThreads() {
+		return threads;
+	}
+
+	public final List<InetSocketAddress> getWorkers() {
+		return Collections.unmodifiableList(workers);
+	}
+
+	public final boolean hasScores() {
+		return !scores.isEmpty();
+	}
+
 	public final boolean hasSources() {
 		return sources.length > 0;
 	}
@@ -266,6 +531,10 @@ public class Config {
 		return debug;
 	}
 
+	public final boolean isEager() {
+		return eager;
+	}
+
 	public final boolean isFull() {
 		return full;
 	}
@@ -274,6 +543,14 @@ public class Config {
 		return help;
 	}
 
+	public final boolean isHeuristic() {
+		return heuristic;
+	}
+
+	public final boolean isLean() {
+		return lean;
+	}
+
 	public final boolean isMute() {
 		return mute;
 	}
@@ -286,10 +563,22 @@ public class Config {
 		return prettify;
 	}
 
+	public final boolean isReduce() {
+		return reduce;
+	}
+
+	public final boolean isReuse() {
+		return reuse;
+	}
+
 	public final boolean isSearch() {
 		return search;
 	}
 
+	public final boolean isSlice() {
+		return slice;
+	}
+
 	public final boolean isTerminate() {
 		return terminate;
 	}
@@ -317,24 +606,58 @@ public class Config {
 			result += " -c " + clasp.toString();
 		if (debug)
 			result += " -d";
+		if (depth > 0)
+			result += " -x " + depth;
+		if (eager)
+			result += " -e";
 		if (full)
 			result += " -f";
 		if (null != gringo)
 			result += " -g " + gringo.toString();
 		if (help)
 			result += " -h";
+		if (heuristic)
+			result += " -y";
 		if (iterations > 0)
 			result += " -i " + iterations;
 		if (kill > 0L)
 			result += " -k " + kill;
+		if (lean)
+			result += " -l";
 		if (mute)
 			result += " -m";
+		if (portfolio > 0)
+			result += " -q " + portfolio;
 		if (prettify)
 			result += " -p";
+		if (reduce)
+			result += " -u";
+		if (null != resume)
+			result += " -z " + resume.toString();
+		if (reuse)
+			result += " -r";
+		if (sample > 0)
+			result += " -w " + sample;
+		for (Path score : scores)
+			result += " --score " + score.toString();
+		if (shards > 0)
+			result += " -n " + shards;
+		if (slice)
+			result += " --slice";
 		if (search)
 			result += " -s";
+		if (null != serve)
+			result += " --serve " + serve.getHostString() + ":" + serve.getPort();
+		if (threads > 0)
+			result += " -j " + threads;
 		if (version)
 			result += " -v";
+		if (!workers.isEmpty()) {
+			List<String> addresses = new ArrayList<>();
+			for (InetSocketAddress worker : workers)
+				addresses.add(worker.getHostString() + ":" + worker.getPort());
+			result += " --workers " + String.join(",", addresses);
+		}
 		for (Path file : sources)
 			result += " " + file.toString();
 		return result;
@@ -4,16 +4,27 @@
 package xhail.core;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.ProcessBuilder.Redirect;
+import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import xhail.core.entities.Grounding;
 import xhail.core.entities.Problem;
@@ -31,9 +42,11 @@ public class Dialler {
 
 		private Config config;
 		private Path errors = null;
+		private boolean grounded = false;
 		private Path middle = null;
+		private int portfolio = 0;
+		private int sample = 0;
 		private Solvable solvable;
-		private Path source = null;
 		private Path target = null;
 		private Values values;
 
@@ -43,6 +56,7 @@ public class Dialler {
 			if (null == grounding)
 				throw new IllegalArgumentException("Illegal 'grounding' argument in Dialler.Builder(Config, Grounding): " + grounding);
 			this.config = config;
+			this.portfolio = config.getPortfolio();
 			this.solvable = grounding;
 		}
 
@@ -54,10 +68,23 @@ public class Dialler {
 			if (null == values)
 				throw new IllegalArgumentException("Illegal 'values' argument in Dialler.Builder(Config, Grounding, Values): " + values);
 			this.config = config;
+			this.portfolio = config.getPortfolio();
 			this.solvable = grounding;
 			this.values = values;
 		}
 
+		public Builder(Config config, GroundProgram program, Collection<String> refinements) {
+			if (null == config)
+				throw new IllegalArgumentException("Illegal 'config' argument in Dialler.Builder(Config, GroundProgram, Collection<String>): " + config);
+			if (null == program)
+				throw new IllegalArgumentException("Illegal 'program' argument in Dialler.Builder(Config, GroundProgram, Collection<String>): " + program);
+			if (null == refinements)
+				throw new IllegalArgumentException("Illegal 'refinements' argument in Dialler.Builder(Config, GroundProgram, Collection<String>): " + refinements);
+			this.config = config;
+			this.grounded = true;
+			this.solvable = program.refine(refinements);
+		}
+
 		public Builder(Config config, Problem problem) {
 			if (null == config)
 				throw new IllegalArgumentException("Illegal 'config' argument in Dialler.Builder(Config, Problem): " + config);
@@ -67,11 +94,18 @@ public class Dialler {
 			this.solvable = problem;
 		}
 
+		public Builder(Config config, Solvable solvable) {
+			if (null == config)
+				throw new IllegalArgumentException("Illegal 'config' argument in Dialler.Builder(Config, Solvable): " + config);
+			if (null == solvable)
+				throw new IllegalArgumentException("Illegal 'solvable' argument in Dialler.Builder(Config, Solvable): " + solvable);
+			this.config = config;
+			this.solvable = solvable;
+		}
+
 		@Override
 		public Dialler build() {
 			try {
-				this.source = Files.createTempFile("xhail", ".tmp");
-				this.source.toFile().deleteOnExit();
 				this.middle = Files.createTempFile("xhail", ".tmp");
 				this.middle.toFile().deleteOnExit();
 				this.target = Files.createTempFile("xhail", ".tmp");
@@ -84,34 +118,90 @@ public class Dialler {
 			return new Dialler(this);
 		}
 
+		/**
+		 * Keeps at most the given number of diverse optimal models per call.
+		 */
+		public Builder setSample(int sample) {
+			this.sample = sample;
+			return this;
+		}
+
 	}
 
-	private static int calls = 0;
+	private static final AtomicInteger calls = new AtomicInteger();
+
+	/**
+	 * Configurations raced by the portfolio, the first being clasp's own
+	 * default.
+	 */
+	private static final String[] CONFIGURATIONS = { "", "jumpy", "tweety", "handy", "crafty", "trendy", "frumpy" };
+
+	/**
+	 * Bytes of ground program that make a call worth one more core.
+	 */
+	private static final long CORE = 1L << 20;
 
 	private static final String ERROR = "ERROR: ";
 
 	private static final String WARNING = "% warning: ";
 
 	public static final int calls() {
-		return calls;
+		return calls.get();
 	}
 
+	private static final Map<String, AtomicInteger> wins = new ConcurrentHashMap<>();
+
+	/**
+	 * Cores shared by all the calls of this process, if limited.
+	 */
+	private static Semaphore budget = null;
+
+	private static synchronized Semaphore budget(int threads) {
+		if (threads > 0 && null == budget)
+			budget = new Semaphore(threads, true);
+		return budget;
+	}
+
+	/**
+	 * Returns how many portfolio races each configuration has won so far.
+	 */
+	public static final Map<String, Integer> wins() {
+		Map<String, Integer> result = new TreeMap<>();
+		for (Map.Entry<String, AtomicInteger> entry : wins.entrySet())
+			result.put(entry.getKey(), entry.getValue().get());
+		return result;
+	}
+
+	private volatile boolean cancelled = false;
+
 	private final String[] clasp;
 
 	private final Path errors;
 
+	private final boolean grounded;
+
 	private final String[] gringo;
 
 	private final Path middle;
 
 	private final boolean mute;
 
-	private final Solvable solvable;
+	private final Pool pool;
+
+	private final int portfolio;
+
+	private final List<Process> processes = new ArrayList<>();
+
+	private final int sample;
 
-	private final Path source;
+	private final List<Socket> sockets = new ArrayList<>();
+
+	private final Solvable solvable;
 
 	private final Path target;
 
+	private final int threads;
+
 	private final boolean output;
 
 	private final boolean debug;
@@ -119,68 +209,280 @@ public class Dialler {
 	private Dialler(Builder builder) {
 		if (null == builder)
 			throw new IllegalArgumentException("Illegal 'builder' argument in Dialler(Byprocess.Builder): " + builder);
-		this.clasp = new String[null == builder.values ? 4 : 5];
-		this.clasp[0] = builder.config.getClasp().toAbsolutePath().toString();
-		this.clasp[1] = builder.middle.toAbsolutePath().toString();
-		this.clasp[2] = "--verbose=0";
-		this.clasp[3] = "--opt-mode=optN";
+		List<String> clasp = new ArrayList<>();
+		clasp.add(builder.config.getClasp().toAbsolutePath().toString());
+		clasp.add(builder.middle.toAbsolutePath().toString());
+		clasp.add("--verbose=0");
+		clasp.add("--opt-mode=optN");
 		if (null != builder.values)
-			this.clasp[4] = "--opt-bound=" + builder.values.toString();
+			clasp.add("--opt-bound=" + builder.values.toString());
+		// honour the _heuristic atoms of the program
+		if (builder.config.isHeuristic())
+			clasp.add("--heuristic=Domain");
+		this.clasp = clasp.toArray(new String[clasp.size()]);
 		this.debug = builder.config.isDebug();
 		this.errors = builder.errors.toAbsolutePath();
-		this.gringo = new String[2];
+		this.grounded = builder.grounded;
+		this.gringo = new String[1];
 		this.gringo[0] = builder.config.getGringo().toAbsolutePath().toString();
-		this.gringo[1] = builder.source.toAbsolutePath().toString();
 		this.middle = builder.middle.toAbsolutePath();
 		this.mute = builder.config.isMute();
 		this.output = builder.config.isOutput();
+		this.pool = builder.config.getWorkers().isEmpty() ? null : Pool.get(builder.config.getWorkers(), builder.config.getSecret());
+		this.portfolio = Math.min(builder.portfolio, CONFIGURATIONS.length);
+		this.sample = builder.sample;
 		this.solvable = builder.solvable;
-		this.source = builder.source.toAbsolutePath();
 		this.target = builder.target.toAbsolutePath();
+		this.threads = builder.config.getThreads();
+		budget(threads);
+	}
+
+	/**
+	 * Stops the current call, if any, and makes this dialler return empty
+	 * results silently from now on.
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		for (Process process : processes)
+			process.destroy();
+		for (Socket socket : sockets)
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+	}
+
+	synchronized Socket connect(Socket socket) throws IOException {
+		if (cancelled)
+			throw new IOException("cancelled");
+		sockets.removeIf(Socket::isClosed);
+		sockets.add(socket);
+		return socket;
 	}
 
 	public Map.Entry<Values, Collection<Collection<String>>> execute(int iter) {
 		if (iter < 0)
 			throw new IllegalArgumentException("Illegal 'iter' argument in Dialler.execute(int): " + iter);
-		calls += 1;
+		calls.incrementAndGet();
+		if (null != pool) {
+			Map.Entry<Values, Collection<Collection<String>>> result = remote(iter);
+			if (null != result)
+				return result;
+		}
+		if (grounded)
+			try {
+				if (!solvable.save(iter, Files.newOutputStream(middle)) && !output)
+					Logger.error("cannot write to 'clasp' process");
+				return solve();
+			} catch (IOException e) {
+				if (!output)
+					Logger.error("cannot write to 'clasp' process");
+				return empty();
+			}
 		try {
-			solvable.save(iter, Files.newOutputStream(source));
+			if (debug)
+				Logger.message(String.format("*** Info  (%s): calling '%s'", Logger.SIGNATURE, String.join(" ", this.gringo)));
+			Process gringo = start(new ProcessBuilder(this.gringo) //
+					.redirectError(Redirect.to(errors.toFile())).redirectOutput(Redirect.to(middle.toFile())));
+			boolean written = solvable.save(iter, gringo.getOutputStream());
 			try {
-				if (debug)
-					Logger.message(String.format("*** Info  (%s): calling '%s'", Logger.SIGNATURE, String.join(" ", this.gringo)));
-				Process gringo = new ProcessBuilder(this.gringo) //
-						.redirectError(Redirect.to(errors.toFile())).redirectOutput(Redirect.to(middle.toFile())).start();
 				gringo.waitFor();
+				if (cancelled)
+					return empty();
 				handle(Files.newInputStream(errors));
-				try {
-					if (debug)
-						Logger.message(String.format("*** Info  (%s): calling '%s'", Logger.SIGNATURE, String.join(" ", this.clasp)));
-					Process clasp = new ProcessBuilder(this.clasp).redirectOutput(Redirect.to(target.toFile())).start();
-					clasp.waitFor();
-					try {
-						return Acquirer.from(Files.newInputStream(target)).parse();
-					} catch (IOException e) {
-						if (!output)
-							Logger.error("cannot read from 'clasp' process");
-					}
-				} catch (IOException e) {
-					if (!output)
-						Logger.error("cannot launch 'clasp' process");
-				} catch (InterruptedException e) {
-					if (!output)
-						Logger.error("'clasp' process was interrupted");
-				}
+				if (!written && !output)
+					Logger.error("cannot write to 'gringo' process");
+				return solve();
 			} catch (IOException e) {
 				if (!output)
-					Logger.error("cannot launch 'gringo' process");
+					Logger.error("cannot read from 'gringo' process");
 			} catch (InterruptedException e) {
-				if (!output)
+				if (!output && !cancelled)
 					Logger.error("'gringo' process was interrupted");
 			}
 		} catch (IOException e) {
-			if (!output)
+			if (!output && !cancelled)
+				Logger.error("cannot launch 'gringo' process");
+		}
+		return empty();
+	}
+
+	/**
+	 * Grounds the program once, without solving it.
+	 *
+	 * @return the ground program, or <code>null</code> if it cannot be read
+	 */
+	public GroundProgram ground() {
+		calls.incrementAndGet();
+		try {
+			if (debug)
+				Logger.message(String.format("*** Info  (%s): calling '%s'", Logger.SIGNATURE, String.join(" ", this.gringo)));
+			Process gringo = start(new ProcessBuilder(this.gringo) //
+					.redirectError(Redirect.to(errors.toFile())).redirectOutput(Redirect.to(middle.toFile())));
+			boolean written = solvable.save(0, gringo.getOutputStream());
+			gringo.waitFor();
+			handle(Files.newInputStream(errors));
+			if (!written && !output)
 				Logger.error("cannot write to 'gringo' process");
+			return GroundProgram.from(Files.newInputStream(middle));
+		} catch (IOException e) {
+			if (!output)
+				Logger.error("cannot read from 'gringo' process");
+		} catch (InterruptedException e) {
+			if (!output)
+				Logger.error("'gringo' process was interrupted");
+		}
+		return null;
+	}
+
+	/**
+	 * Takes cores from the global budget for a call: one, waiting for it if
+	 * needed, plus as many free ones as the size of the ground program
+	 * deserves. Returns 0 if there is no budget.
+	 */
+	private int acquire() throws InterruptedException {
+		if (null == budget)
+			return 0;
+		long length = 0L;
+		try {
+			length = Files.size(middle);
+		} catch (IOException e) {
+		}
+		long wanted = Math.min(threads, 1L + length / CORE);
+		budget.acquire();
+		int result = 1;
+		while (result < wanted && budget.tryAcquire())
+			result += 1;
+		return result;
+	}
+
+	private String[] command(int cores, String configuration) {
+		List<String> result = new ArrayList<>();
+		Collections.addAll(result, clasp);
+		if (cores > 1)
+			result.add("--parallel-mode=" + cores);
+		if (!configuration.isEmpty())
+			result.add("--configuration=" + configuration);
+		return result.toArray(new String[result.size()]);
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Runs several configurations of <code>clasp</code> on the same ground
+	 * program and reads the answers of the first one that completes the
+	 * search, killing the others. With a core budget, only the racers that
+	 * find a free core are started.
+	 */
+	private Map.Entry<Values, Collection<Collection<String>>> race() {
+		Process[] racers = new Process[portfolio];
+		Path[] targets = new Path[portfolio];
+		int started = 0, granted = 0;
+		try {
+			BlockingQueue<Integer> finished = new LinkedBlockingQueue<>();
+			for (int i = 0; i < portfolio; i++) {
+				if (null != budget) {
+					if (0 == i)
+						budget.acquire();
+					else if (!budget.tryAcquire())
+						break;
+					granted += 1;
+				}
+				targets[i] = 0 == i ? target : Files.createTempFile("xhail", ".tmp");
+				targets[i].toFile().deleteOnExit();
+				final Process racer = start(new ProcessBuilder(command(1, CONFIGURATIONS[i])).redirectOutput(Redirect.to(targets[i].toFile())));
+				final int index = i;
+				racers[i] = racer;
+				started += 1;
+				Thread waiter = new Thread(() -> {
+					try {
+						racer.waitFor();
+					} catch (InterruptedException e) {
+					}
+					finished.add(index);
+				});
+				waiter.setDaemon(true);
+				waiter.start();
+			}
+			// 20 and 30 are the exit codes of a completed search
+			int winner = -1;
+			for (int i = 0; winner < 0 && i < started && !cancelled; i++) {
+				int index = finished.take();
+				int code = racers[index].exitValue();
+				if (20 == code || 30 == code)
+					winner = index;
+			}
+			for (int i = 0; i < started; i++)
+				racers[i].destroy();
+			if (cancelled)
+				return empty();
+			if (winner < 0)
+				winner = 0;
+			else {
+				String name = CONFIGURATIONS[winner].isEmpty() ? "default" : CONFIGURATIONS[winner];
+				wins.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+				if (debug)
+					Logger.message(String.format("*** Info  (%s): portfolio won by '%s'", Logger.SIGNATURE, name));
+			}
+			try {
+				return Acquirer.from(Files.newInputStream(targets[winner])).setSample(sample).parse();
+			} catch (IOException e) {
+				if (!output)
+					Logger.error("cannot read from 'clasp' process");
+			}
+		} catch (IOException e) {
+			for (int i = 0; i < started; i++)
+				racers[i].destroy();
+			if (!output && !cancelled)
+				Logger.error("cannot launch 'clasp' process");
+		} catch (InterruptedException e) {
+			if (!output && !cancelled)
+				Logger.error("'clasp' process was interrupted");
+		} finally {
+			if (granted > 0)
+				budget.release(granted);
+			for (int i = 1; i < portfolio; i++)
+				if (null != targets[i])
+					targets[i].toFile().delete();
+		}
+		return empty();
+	}
+
+	private Map.Entry<Values, Collection<Collection<String>>> solve() {
+		if (portfolio > 1)
+			return race();
+		int granted = 0;
+		try {
+			granted = acquire();
+			String[] command = command(granted, "");
+			if (debug)
+				Logger.message(String.format("*** Info  (%s): calling '%s'", Logger.SIGNATURE, String.join(" ", command)));
+			Process clasp = start(new ProcessBuilder(command).redirectOutput(Redirect.to(target.toFile())));
+			clasp.waitFor();
+			if (cancelled)
+				return empty();
+			try {
+				return Acquirer.from(Files.newInputStream(target)).setSample(sample).parse();
+			} catch (IOException e) {
+				if (!output)
+					Logger.error("cannot read from 'clasp' process");
+			}
+		} catch (IOException e) {
+			if (!output && !cancelled)
+				Logger.error("cannot launch 'clasp' process");
+		} catch (InterruptedException e) {
+			if (!output && !cancelled)
+				Logger.error("'clasp' process was interrupted");
+		} finally {
+			if (granted > 0)
+				budget.release(granted);
 		}
+		return empty();
+	}
+
+	private Map.Entry<Values, Collection<Collection<String>>> empty() {
 		return new SimpleEntry<Values, Collection<Collection<String>>>(null, Collections.emptySet());
 	}
 
@@ -213,4 +515,40 @@ public class Dialler {
 			Logger.error(message);
 	}
 
+	/**
+	 * Ships the program to a worker and parses the output it streams back,
+	 * or returns <code>null</code> if the call should run locally.
+	 */
+	private Map.Entry<Values, Collection<Collection<String>>> remote(int iter) {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		if (!solvable.save(iter, stream))
+			return null;
+		try {
+			if (debug)
+				Logger.message(String.format("*** Info  (%s): shipping call to a worker", Logger.SIGNATURE));
+			if (!pool.solve(this, stream.toByteArray(), grounded, Arrays.asList(clasp).subList(2, clasp.length), errors, target))
+				return cancelled ? empty() : null;
+			if (cancelled)
+				return empty();
+			handle(Files.newInputStream(errors));
+			return Acquirer.from(Files.newInputStream(target)).setSample(sample).parse();
+		} catch (IOException e) {
+			if (!output)
+				Logger.error("cannot read from worker");
+		} catch (InterruptedException e) {
+			if (!output && !cancelled)
+				Logger.error("worker call was interrupted");
+		}
+		return empty();
+	}
+
+	private synchronized Process start(ProcessBuilder builder) throws IOException {
+		if (cancelled)
+			throw new IOException("cancelled");
+		processes.removeIf(process -> !process.isAlive());
+		Process result = builder.start();
+		processes.add(result);
+		return result;
+	}
+
 }
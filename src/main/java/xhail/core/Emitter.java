@@ -0,0 +1,139 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Buffered writer for the programs sent to <code>gringo</code>: rules are
+ * appended piece by piece instead of being formatted into intermediate
+ * strings. Like <code>PrintStream</code>, it never throws but remembers
+ * whether an error occurred (see {@link #checkError()}).
+ *
+ * @author stefano
+ *
+ */
+public class Emitter {
+
+	private static final int SIZE = 1 << 16;
+
+	private boolean error = false;
+
+	private final OutputStream stream;
+
+	private final Writer writer;
+
+	/**
+	 * Creates an in-memory emitter, whose content is retrieved by
+	 * {@link #lines()}.
+	 */
+	public Emitter() {
+		this.stream = null;
+		this.writer = new StringWriter();
+	}
+
+	public Emitter(OutputStream stream) {
+		if (null == stream)
+			throw new IllegalArgumentException("Illegal 'stream' argument in Emitter(OutputStream): " + stream);
+		this.stream = stream;
+		this.writer = new BufferedWriter(new OutputStreamWriter(stream), SIZE);
+	}
+
+	public Emitter append(char value) {
+		try {
+			writer.write(value);
+		} catch (IOException e) {
+			error = true;
+		}
+		return this;
+	}
+
+	public Emitter append(int value) {
+		return append(Integer.toString(value));
+	}
+
+	public Emitter append(Object value) {
+		return append(String.valueOf(value));
+	}
+
+	public Emitter append(String value) {
+		try {
+			writer.write(value);
+		} catch (IOException e) {
+			error = true;
+		}
+		return this;
+	}
+
+	public boolean checkError() {
+		flush();
+		return error;
+	}
+
+	public void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			error = true;
+		}
+	}
+
+	public void flush() {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			error = true;
+		}
+	}
+
+	/**
+	 * Returns the lines emitted so far by an in-memory emitter.
+	 *
+	 * @return the lines emitted so far
+	 */
+	public String[] lines() {
+		if (!(writer instanceof StringWriter))
+			throw new IllegalStateException("Illegal call to Emitter.lines() on a stream");
+		String content = writer.toString();
+		if (content.isEmpty())
+			return new String[0];
+		return content.split("\n");
+	}
+
+	public Emitter println() {
+		return append('\n');
+	}
+
+	public Emitter println(String value) {
+		return append(value).append('\n');
+	}
+
+	/**
+	 * Writes a block of bytes rendered beforehand by another emitter, in a
+	 * single transfer when the emitter is backed by a stream.
+	 *
+	 * @param bytes
+	 *            the block to write
+	 * @return this emitter
+	 */
+	public Emitter write(byte[] bytes) {
+		if (null == bytes)
+			throw new IllegalArgumentException("Illegal 'bytes' argument in Emitter.write(byte[]): " + bytes);
+		if (null == stream)
+			return append(new String(bytes));
+		try {
+			writer.flush();
+			stream.write(bytes);
+		} catch (IOException e) {
+			error = true;
+		}
+		return this;
+	}
+
+}
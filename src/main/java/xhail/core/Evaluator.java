@@ -0,0 +1,866 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+
+/**
+ * Semi-naive bottom-up evaluator for the definite, stratified part of a
+ * program. Predicates defined only by facts and by rules whose bodies are
+ * atoms or negated atoms over such predicates are materialised once in the
+ * JVM, while every other statement is left to <code>gringo</code>.
+ *
+ * @author stefano
+ *
+ */
+public class Evaluator {
+
+	public static class Builder implements Buildable<Evaluator> {
+
+		private static final java.util.regex.Pattern NAME = java.util.regex.Pattern.compile("[a-z][A-Za-z0-9_']*");
+
+		private static final java.util.regex.Pattern RANGE = java.util.regex.Pattern.compile("(-?\\d{1,9})\\s*\\.\\.\\s*(-?\\d{1,9})");
+
+		private final Set<String> constants = new HashSet<>();
+
+		private final Set<String> open = new HashSet<>();
+
+		private final Map<String, Relation> relations = new LinkedHashMap<>();
+
+		private final List<String> statements = new ArrayList<>();
+
+		private final Symbols symbols = new Symbols();
+
+		private final Set<String> variables = new HashSet<>();
+
+		/**
+		 * Records the variables of a <code>#domain</code> declaration: rules
+		 * using them have implicit body atoms and are left to
+		 * <code>gringo</code>.
+		 */
+		public Builder addDomain(String statement) {
+			if (null == statement)
+				throw new IllegalArgumentException("Illegal 'statement' argument in Evaluator.Builder.addDomain(String): " + statement);
+			for (int i = 0; i < statement.length(); i++)
+				if (Character.isUpperCase(statement.charAt(i))) {
+					int start = i;
+					while (i < statement.length() && (Character.isLetterOrDigit(statement.charAt(i)) || '_' == statement.charAt(i)))
+						i += 1;
+					variables.add(statement.substring(start, i));
+				}
+			return this;
+		}
+
+		/**
+		 * Marks a predicate as defined outside of the statements, such as the
+		 * heads of the modes, so that it is never materialised.
+		 */
+		public Builder addOpen(String identifier) {
+			if (null == identifier)
+				throw new IllegalArgumentException("Illegal 'identifier' argument in Evaluator.Builder.addOpen(String): " + identifier);
+			open.add(identifier);
+			return this;
+		}
+
+		/**
+		 * Adds a statement: ground facts are stored in their relation at once,
+		 * so that large sets of facts are never kept as text.
+		 */
+		public Builder addStatement(String statement) {
+			if (null == statement)
+				throw new IllegalArgumentException("Illegal 'statement' argument in Evaluator.Builder.addStatement(String): " + statement);
+			statement = statement.trim();
+			if (statement.startsWith("#const")) {
+				int pos = statement.indexOf('=');
+				if (pos > 0)
+					constants.add(statement.substring("#const".length(), pos).trim());
+			} else if (!statement.startsWith("#")) {
+				List<String> facts = expand(statement);
+				if (null != facts) {
+					for (String fact : facts)
+						addStatement(fact);
+					return this;
+				}
+				Rule rule = new Scanner(statement, constants).rule();
+				if (null != rule && 0 == rule.body.length && 0 == rule.slots) {
+					int[] tuple = new int[rule.head.terms.length];
+					for (int i = 0; i < tuple.length; i++)
+						tuple[i] = symbols.intern(rule.head.terms[i], new int[0]);
+					relations.computeIfAbsent(rule.head.key, k -> new Relation()).add(tuple);
+					return this;
+				}
+			}
+			statements.add(statement);
+			return this;
+		}
+
+		/**
+		 * Expands the pools and integer ranges of a fact, such as the types
+		 * <code>x(a;b;c).</code> or <code>t(0..9).</code>, into single facts;
+		 * returns <code>null</code> if there is nothing to expand. Pools are
+		 * only expanded in facts of a single argument.
+		 */
+		private static List<String> expand(String statement) {
+			int open = statement.indexOf('(');
+			if (open < 0 || (statement.indexOf(';') < 0 && !statement.contains("..")) || !statement.endsWith(").") || !NAME.matcher(statement.substring(0, open)).matches())
+				return null;
+			boolean expanded = false;
+			List<String> result = Collections.singletonList(statement.substring(0, open + 1));
+			List<String> arguments = split(statement.substring(open + 1, statement.length() - 2), ',');
+			for (int i = 0; i < arguments.size(); i++) {
+				List<String> alternatives = split(arguments.get(i), ';');
+				if (alternatives.size() > 1 && arguments.size() > 1)
+					return null;
+				List<String> values = new ArrayList<>();
+				for (String alternative : alternatives) {
+					Matcher matcher = RANGE.matcher(alternative);
+					if (matcher.matches()) {
+						expanded = true;
+						for (int value = Integer.parseInt(matcher.group(1)); value <= Integer.parseInt(matcher.group(2)); value++)
+							values.add(Integer.toString(value));
+					} else
+						values.add(alternative);
+				}
+				expanded |= alternatives.size() > 1;
+				List<String> next = new ArrayList<>();
+				for (String prefix : result)
+					for (String value : values)
+						next.add(prefix + (i > 0 ? "," : "") + value);
+				result = next;
+			}
+			if (!expanded)
+				return null;
+			List<String> facts = new ArrayList<>();
+			for (String prefix : result)
+				facts.add(prefix + ").");
+			return facts;
+		}
+
+		/**
+		 * Splits the given text at the separators out of parentheses and
+		 * quotes.
+		 */
+		private static List<String> split(String text, char separator) {
+			List<String> result = new ArrayList<>();
+			int depth = 0;
+			boolean quoted = false;
+			int start = 0;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (quoted)
+					quoted = '"' != c || '\\' == text.charAt(i - 1);
+				else if ('"' == c)
+					quoted = true;
+				else if ('(' == c)
+					depth += 1;
+				else if (')' == c)
+					depth -= 1;
+				else if (separator == c && 0 == depth) {
+					result.add(text.substring(start, i).trim());
+					start = i + 1;
+				}
+			}
+			result.add(text.substring(start).trim());
+			return result;
+		}
+
+		public Builder addStatements(String[] statements) {
+			if (null == statements)
+				throw new IllegalArgumentException("Illegal 'statements' argument in Evaluator.Builder.addStatements(String[]): " + statements);
+			for (String statement : statements)
+				addStatement(statement);
+			return this;
+		}
+
+		@Override
+		public Evaluator build() {
+			return new Evaluator(this);
+		}
+
+	}
+
+	/**
+	 * Atom of a rule, possibly negated, with the column used to look its
+	 * matches up.
+	 */
+	private static class Literal {
+
+		private int column = -1;
+
+		private final String key;
+
+		private final String name;
+
+		private final boolean negated;
+
+		private final Pattern[] terms;
+
+		private Literal(String name, Pattern[] terms, boolean negated) {
+			this.name = name;
+			this.terms = terms;
+			this.negated = negated;
+			this.key = name + "/" + terms.length;
+		}
+
+	}
+
+	/**
+	 * Term of a rule: either a value, a variable slot or a compound term.
+	 */
+	private static class Pattern {
+
+		private final Pattern[] arguments;
+
+		private final String functor;
+
+		private final int slot;
+
+		private final String value;
+
+		private Pattern(String functor, Pattern[] arguments) {
+			this.functor = functor;
+			this.arguments = arguments;
+			this.slot = -1;
+			this.value = null;
+		}
+
+		private Pattern(int slot) {
+			this.functor = null;
+			this.arguments = null;
+			this.slot = slot;
+			this.value = null;
+		}
+
+		private Pattern(String value) {
+			this.functor = null;
+			this.arguments = null;
+			this.slot = -1;
+			this.value = value;
+		}
+
+		private boolean isBound(boolean[] bound) {
+			if (slot >= 0)
+				return bound[slot];
+			if (null != arguments)
+				for (Pattern argument : arguments)
+					if (!argument.isBound(bound))
+						return false;
+			return true;
+		}
+
+		private void bind(boolean[] bound) {
+			if (slot >= 0)
+				bound[slot] = true;
+			else if (null != arguments)
+				for (Pattern argument : arguments)
+					argument.bind(bound);
+		}
+
+	}
+
+	/**
+	 * Tuples of a predicate, with the indexes on the columns used by joins.
+	 */
+	private static class Relation {
+
+		private final Map<Integer, Map<Integer, List<int[]>>> indexes = new HashMap<>();
+
+		private final Set<Tuple> set = new HashSet<>();
+
+		private final List<int[]> tuples = new ArrayList<>();
+
+		private boolean add(int[] tuple) {
+			if (!set.add(new Tuple(tuple)))
+				return false;
+			tuples.add(tuple);
+			for (Map.Entry<Integer, Map<Integer, List<int[]>>> entry : indexes.entrySet())
+				entry.getValue().computeIfAbsent(tuple[entry.getKey()], k -> new ArrayList<>()).add(tuple);
+			return true;
+		}
+
+		private boolean contains(int[] tuple) {
+			return set.contains(new Tuple(tuple));
+		}
+
+		private void index(int column) {
+			if (!indexes.containsKey(column)) {
+				Map<Integer, List<int[]>> index = new HashMap<>();
+				for (int[] tuple : tuples)
+					index.computeIfAbsent(tuple[column], k -> new ArrayList<>()).add(tuple);
+				indexes.put(column, index);
+			}
+		}
+
+		private List<int[]> lookup(int column, int value) {
+			return indexes.get(column).getOrDefault(value, Collections.emptyList());
+		}
+
+	}
+
+	private static class Rule {
+
+		private final Literal[] body;
+
+		private final Literal head;
+
+		private final int slots;
+
+		private Rule(Literal head, Literal[] body, int slots) {
+			this.head = head;
+			this.body = body;
+			this.slots = slots;
+		}
+
+	}
+
+	/**
+	 * Reads a statement in the supported fragment, giving up on anything
+	 * else.
+	 */
+	private static class Scanner {
+
+		private int position = 0;
+
+		private final Set<String> reserved;
+
+		private final Map<String, Integer> slots = new HashMap<>();
+
+		private final String source;
+
+		private Scanner(String source, Set<String> reserved) {
+			this.source = source;
+			this.reserved = reserved;
+		}
+
+		private boolean accept(String token) {
+			skip();
+			if (source.startsWith(token, position)) {
+				position += token.length();
+				return true;
+			}
+			return false;
+		}
+
+		private String identifier() {
+			skip();
+			int start = position;
+			if (position < source.length() && Character.isLowerCase(source.charAt(position)))
+				while (position < source.length() && (Character.isLetterOrDigit(source.charAt(position)) || '_' == source.charAt(position) || '\'' == source.charAt(position)))
+					position += 1;
+			return start == position ? null : source.substring(start, position);
+		}
+
+		private Literal literal() {
+			String name = identifier();
+			if (null == name)
+				return null;
+			boolean negated = false;
+			if ("not".equals(name)) {
+				negated = true;
+				if (null == (name = identifier()))
+					return null;
+			}
+			Pattern[] terms = terms();
+			return null == terms ? null : new Literal(name, terms, negated);
+		}
+
+		private Rule rule() {
+			Literal head = literal();
+			if (null == head || head.negated)
+				return null;
+			List<Literal> positives = new ArrayList<>();
+			List<Literal> negatives = new ArrayList<>();
+			if (accept(":-"))
+				do {
+					Literal literal = literal();
+					if (null == literal)
+						return null;
+					(literal.negated ? negatives : positives).add(literal);
+				} while (accept(","));
+			if (!accept(".") || (skip() && position < source.length()))
+				return null;
+			// safety: every variable must occur in a positive body atom
+			boolean[] bound = new boolean[slots.size()];
+			for (Literal literal : positives)
+				for (Pattern term : literal.terms)
+					term.bind(bound);
+			for (Pattern term : head.terms)
+				if (!term.isBound(bound))
+					return null;
+			for (Literal literal : negatives)
+				for (Pattern term : literal.terms)
+					if (!term.isBound(bound))
+						return null;
+			// the first column already bound by the previous atoms is used for
+			// the lookup
+			Arrays.fill(bound, false);
+			for (Literal literal : positives) {
+				for (int i = 0; i < literal.terms.length && literal.column < 0; i++)
+					if (literal.terms[i].isBound(bound))
+						literal.column = i;
+				for (Pattern term : literal.terms)
+					term.bind(bound);
+			}
+			positives.addAll(negatives);
+			return new Rule(head, positives.toArray(new Literal[positives.size()]), slots.size());
+		}
+
+		private boolean skip() {
+			while (position < source.length() && Character.isWhitespace(source.charAt(position)))
+				position += 1;
+			return true;
+		}
+
+		private Pattern term() {
+			skip();
+			if (position >= source.length())
+				return null;
+			char c = source.charAt(position);
+			int start = position;
+			if ('"' == c) {
+				position += 1;
+				while (position < source.length() && '"' != source.charAt(position))
+					position += '\\' == source.charAt(position) ? 2 : 1;
+				if (position >= source.length())
+					return null;
+				position += 1;
+				return new Pattern(source.substring(start, position));
+			}
+			if (Character.isDigit(c) || '-' == c) {
+				position += 1;
+				while (position < source.length() && Character.isDigit(source.charAt(position)))
+					position += 1;
+				try {
+					return new Pattern(Integer.toString(Integer.parseInt(source.substring(start, position))));
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+			if (Character.isUpperCase(c) || '_' == c) {
+				while (position < source.length() && (Character.isLetterOrDigit(source.charAt(position)) || '_' == source.charAt(position) || '\'' == source.charAt(position)))
+					position += 1;
+				String name = source.substring(start, position);
+				if (reserved.contains(name))
+					return null;
+				if ("_".equals(name))
+					name = "_" + slots.size();
+				return new Pattern(slots.computeIfAbsent(name, k -> slots.size()));
+			}
+			String name = identifier();
+			if (null == name || reserved.contains(name))
+				return null;
+			skip();
+			if (position < source.length() && '(' == source.charAt(position)) {
+				Pattern[] arguments = terms();
+				return null == arguments ? null : new Pattern(name, arguments);
+			}
+			return new Pattern(name);
+		}
+
+		private Pattern[] terms() {
+			List<Pattern> result = new ArrayList<>();
+			if (accept("(")) {
+				do {
+					Pattern term = term();
+					if (null == term)
+						return null;
+					result.add(term);
+				} while (accept(","));
+				if (!accept(")"))
+					return null;
+			}
+			return result.toArray(new Pattern[result.size()]);
+		}
+
+	}
+
+	/**
+	 * Values of the terms: constants and compound terms are numbered as they
+	 * are met, and compound terms are kept as the values of their functor and
+	 * arguments.
+	 */
+	private static class Symbols {
+
+		private final List<int[]> structures = new ArrayList<>();
+
+		private final List<String> texts = new ArrayList<>();
+
+		private final Map<Object, Integer> values = new HashMap<>();
+
+		private int intern(Pattern pattern, int[] binding) {
+			if (pattern.slot >= 0)
+				return binding[pattern.slot];
+			if (null == pattern.arguments)
+				return value(pattern.value, null);
+			int[] structure = new int[1 + pattern.arguments.length];
+			structure[0] = value(pattern.functor, null);
+			for (int i = 0; i < pattern.arguments.length; i++)
+				structure[1 + i] = intern(pattern.arguments[i], binding);
+			return value(null, structure);
+		}
+
+		/**
+		 * Returns whether a value is, or contains, the given one.
+		 */
+		private boolean mentions(int value, int target) {
+			if (value == target)
+				return true;
+			int[] structure = structures.get(value);
+			if (null != structure)
+				for (int i = 1; i < structure.length; i++)
+					if (mentions(structure[i], target))
+						return true;
+			return false;
+		}
+
+		private int value(String text, int[] structure) {
+			Object key = null == structure ? text : new Tuple(structure);
+			Integer result = values.get(key);
+			if (null == result) {
+				result = texts.size();
+				if (null == text) {
+					StringBuilder builder = new StringBuilder(texts.get(structure[0])).append('(');
+					for (int i = 1; i < structure.length; i++)
+						builder.append(i > 1 ? "," : "").append(texts.get(structure[i]));
+					text = builder.append(')').toString();
+				}
+				texts.add(text);
+				structures.add(structure);
+				values.put(key, result);
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Array of values with structural equality.
+	 */
+	private static class Tuple {
+
+		private final int hash;
+
+		private final int[] values;
+
+		private Tuple(int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Tuple && Arrays.equals(values, ((Tuple) obj).values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+	private final String[] facts;
+
+	private final Set<String> open;
+
+	private final Map<String, Relation> relations;
+
+	private final String[] remainder;
+
+	private final Symbols symbols;
+
+	private Evaluator(Builder builder) {
+		if (null == builder)
+			throw new IllegalArgumentException("Illegal 'builder' argument in Evaluator(Evaluator.Builder): " + builder);
+		Set<String> reserved = new HashSet<>(builder.constants);
+		reserved.addAll(builder.variables);
+		this.relations = builder.relations;
+		this.symbols = builder.symbols;
+		Set<String> open = new HashSet<>(builder.open);
+		// facts read before a constant was declared took it as a value
+		for (String constant : builder.constants) {
+			Integer value = symbols.values.get(constant);
+			if (null != value)
+				for (Map.Entry<String, Relation> entry : relations.entrySet())
+					for (int[] tuple : entry.getValue().tuples)
+						for (int element : tuple)
+							if (symbols.mentions(element, value))
+								open.add(entry.getKey().substring(0, entry.getKey().lastIndexOf('/')));
+		}
+		Rule[] rules = new Rule[builder.statements.size()];
+		for (int i = 0; i < rules.length; i++) {
+			String statement = builder.statements.get(i);
+			if (!statement.startsWith("#"))
+				rules[i] = new Scanner(statement, reserved).rule();
+			if (null == rules[i]) {
+				int neck = Utils.neck(statement);
+				open.addAll(Utils.predicates(neck < 0 ? statement : statement.substring(0, neck)));
+			}
+		}
+
+		Map<String, Integer> strata = new HashMap<>();
+		boolean stratified = false;
+		while (!stratified) {
+			// a predicate is open as soon as one of its rules depends on an
+			// open one
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (Rule rule : rules)
+					if (null != rule && !open.contains(rule.head.name))
+						for (Literal literal : rule.body)
+							if (open.contains(literal.name)) {
+								changed |= open.add(rule.head.name);
+								break;
+							}
+			}
+			// strata still growing after as many rounds as rules depend on
+			// negation through recursion, and are left to gringo
+			strata.clear();
+			Set<String> growing = new HashSet<>();
+			for (int round = 0; round <= rules.length + 1; round++) {
+				growing.clear();
+				for (Rule rule : rules)
+					if (null != rule && !open.contains(rule.head.name)) {
+						int stratum = 0;
+						for (Literal literal : rule.body)
+							stratum = Math.max(stratum, strata.getOrDefault(literal.name, 0) + (literal.negated ? 1 : 0));
+						if (stratum > strata.getOrDefault(rule.head.name, 0)) {
+							strata.put(rule.head.name, stratum);
+							growing.add(rule.head.name);
+						}
+					}
+				if (growing.isEmpty())
+					break;
+			}
+			stratified = growing.isEmpty();
+			open.addAll(growing);
+		}
+
+		Map<Integer, List<Rule>> layers = new HashMap<>();
+		int top = 0;
+		for (Rule rule : rules)
+			if (null != rule && !open.contains(rule.head.name)) {
+				int stratum = strata.getOrDefault(rule.head.name, 0);
+				layers.computeIfAbsent(stratum, k -> new ArrayList<>()).add(rule);
+				top = Math.max(top, stratum);
+				relation(rule.head.key);
+				for (Literal literal : rule.body) {
+					Relation relation = relation(literal.key);
+					if (literal.column >= 0)
+						relation.index(literal.column);
+				}
+			}
+		for (int stratum = 0; stratum <= top; stratum++)
+			evaluate(layers.getOrDefault(stratum, Collections.emptyList()));
+
+		// the facts of open predicates are left to gringo as well
+		List<String> facts = new ArrayList<>();
+		List<String> remainder = new ArrayList<>();
+		for (Iterator<Map.Entry<String, Relation>> iterator = relations.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Relation> entry = iterator.next();
+			String name = entry.getKey().substring(0, entry.getKey().lastIndexOf('/'));
+			for (int[] tuple : entry.getValue().tuples)
+				(open.contains(name) ? remainder : facts).add(render(name, tuple) + ".");
+			if (open.contains(name))
+				iterator.remove();
+		}
+		this.facts = facts.toArray(new String[facts.size()]);
+		for (int i = 0; i < rules.length; i++)
+			if (null == rules[i] || open.contains(rules[i].head.name))
+				remainder.add(builder.statements.get(i));
+		this.remainder = remainder.toArray(new String[remainder.size()]);
+		this.open = open;
+	}
+
+	/**
+	 * Evaluates a stratum: a first naive round, then rounds joining each
+	 * atom of the stratum with the tuples derived by the previous one only.
+	 * The joins of a round run in parallel, while the derived tuples are
+	 * added afterwards.
+	 */
+	private void evaluate(List<Rule> rules) {
+		Set<String> local = new HashSet<>();
+		for (Rule rule : rules)
+			local.add(rule.head.key);
+		List<Map.Entry<Rule, Integer>> jobs = new ArrayList<>();
+		for (Rule rule : rules)
+			jobs.add(new SimpleEntry<>(rule, -1));
+		Map<String, List<int[]>> delta = Collections.emptyMap();
+		while (!jobs.isEmpty()) {
+			final Map<String, List<int[]>> previous = delta;
+			List<Map.Entry<Rule, List<int[]>>> results = (jobs.size() > 1 ? jobs.parallelStream() : jobs.stream())
+					.map(job -> new SimpleEntry<>(job.getKey(), join(job.getKey(), job.getValue(), previous)))
+					.collect(Collectors.toList());
+			delta = new HashMap<>();
+			for (Map.Entry<Rule, List<int[]>> result : results) {
+				Rule rule = result.getKey();
+				Relation relation = relations.get(rule.head.key);
+				for (int[] binding : result.getValue()) {
+					int[] tuple = new int[rule.head.terms.length];
+					for (int i = 0; i < tuple.length; i++)
+						tuple[i] = symbols.intern(rule.head.terms[i], binding);
+					if (relation.add(tuple))
+						delta.computeIfAbsent(rule.head.key, k -> new ArrayList<>()).add(tuple);
+				}
+			}
+			jobs.clear();
+			for (Rule rule : rules)
+				for (int i = 0; i < rule.body.length; i++)
+					if (!rule.body[i].negated && delta.containsKey(rule.body[i].key) && local.contains(rule.body[i].key))
+						jobs.add(new SimpleEntry<>(rule, i));
+		}
+	}
+
+	/**
+	 * Returns the value of a term under some bindings, or -1 if a compound
+	 * term was never built.
+	 */
+	private int find(Pattern pattern, int[] binding) {
+		if (pattern.slot >= 0)
+			return binding[pattern.slot];
+		if (null == pattern.arguments)
+			return symbols.values.getOrDefault(pattern.value, -1);
+		int[] structure = new int[1 + pattern.arguments.length];
+		structure[0] = symbols.values.getOrDefault(pattern.functor, -1);
+		for (int i = 0; i < pattern.arguments.length; i++)
+			if ((structure[1 + i] = find(pattern.arguments[i], binding)) < 0)
+				return -1;
+		return structure[0] < 0 ? -1 : symbols.values.getOrDefault(new Tuple(structure), -1);
+	}
+
+	public final String[] getFacts() {
+		return facts;
+	}
+
+	public final String[] getRemainder() {
+		return remainder;
+	}
+
+	/**
+	 * Returns whether the given predicate holds for the given arguments in
+	 * the materialised model.
+	 */
+	public boolean holds(String identifier, String... arguments) {
+		if (null == identifier)
+			throw new IllegalArgumentException("Illegal 'identifier' argument in Evaluator.holds(String, String...): " + identifier);
+		Relation relation = relations.get(identifier + "/" + arguments.length);
+		if (null == relation)
+			return false;
+		int[] tuple = new int[arguments.length];
+		for (int i = 0; i < tuple.length; i++) {
+			Pattern pattern = new Scanner(arguments[i], Collections.emptySet()).term();
+			if (null == pattern || (tuple[i] = find(pattern, new int[0])) < 0)
+				return false;
+		}
+		return relation.contains(tuple);
+	}
+
+	/**
+	 * Returns whether the given predicate is left to <code>gringo</code>, so
+	 * that {@link #holds(String, String...)} cannot tell anything about it.
+	 */
+	public boolean isOpen(String identifier) {
+		if (null == identifier)
+			throw new IllegalArgumentException("Illegal 'identifier' argument in Evaluator.isOpen(String): " + identifier);
+		return open.contains(identifier);
+	}
+
+	/**
+	 * Returns the bindings satisfying the body of a rule, taking the matches
+	 * of the atom at <code>position</code> from the last derived tuples.
+	 */
+	private List<int[]> join(Rule rule, int position, Map<String, List<int[]>> delta) {
+		List<int[]> result = new ArrayList<>();
+		int[] binding = new int[rule.slots];
+		Arrays.fill(binding, -1);
+		join(rule, 0, position, delta, binding, result);
+		return result;
+	}
+
+	private void join(Rule rule, int index, int position, Map<String, List<int[]>> delta, int[] binding, List<int[]> result) {
+		if (index == rule.body.length) {
+			result.add(binding.clone());
+			return;
+		}
+		Literal literal = rule.body[index];
+		Relation relation = relations.get(literal.key);
+		if (literal.negated) {
+			int[] tuple = new int[literal.terms.length];
+			for (int i = 0; i < tuple.length; i++)
+				tuple[i] = find(literal.terms[i], binding);
+			for (int value : tuple)
+				if (value < 0) {
+					join(rule, index + 1, position, delta, binding, result);
+					return;
+				}
+			if (!relation.contains(tuple))
+				join(rule, index + 1, position, delta, binding, result);
+			return;
+		}
+		Collection<int[]> candidates;
+		if (index == position)
+			candidates = delta.get(literal.key);
+		else if (literal.column >= 0) {
+			int value = find(literal.terms[literal.column], binding);
+			if (value < 0)
+				return;
+			candidates = relation.lookup(literal.column, value);
+		} else
+			candidates = relation.tuples;
+		int[] saved = binding.clone();
+		for (int[] tuple : candidates) {
+			boolean matched = true;
+			for (int i = 0; matched && i < tuple.length; i++)
+				matched = match(literal.terms[i], tuple[i], binding);
+			if (matched)
+				join(rule, index + 1, position, delta, binding, result);
+			System.arraycopy(saved, 0, binding, 0, saved.length);
+		}
+	}
+
+	private boolean match(Pattern pattern, int value, int[] binding) {
+		if (pattern.slot >= 0) {
+			if (binding[pattern.slot] < 0)
+				binding[pattern.slot] = value;
+			return binding[pattern.slot] == value;
+		}
+		int[] structure = symbols.structures.get(value);
+		if (null == pattern.arguments)
+			return null == structure && symbols.texts.get(value).equals(pattern.value);
+		if (null == structure || structure.length != 1 + pattern.arguments.length || !symbols.texts.get(structure[0]).equals(pattern.functor))
+			return false;
+		for (int i = 0; i < pattern.arguments.length; i++)
+			if (!match(pattern.arguments[i], structure[1 + i], binding))
+				return false;
+		return true;
+	}
+
+	private Relation relation(String key) {
+		return relations.computeIfAbsent(key, k -> new Relation());
+	}
+
+	private String render(String name, int[] tuple) {
+		if (0 == tuple.length)
+			return name;
+		StringBuilder builder = new StringBuilder(name).append('(');
+		for (int i = 0; i < tuple.length; i++)
+			builder.append(i > 0 ? "," : "").append(symbols.texts.get(tuple[i]));
+		return builder.append(')').toString();
+	}
+
+}
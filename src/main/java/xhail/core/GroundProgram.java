@@ -0,0 +1,212 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import xhail.core.entities.Solvable;
+
+/**
+ * Abductive program ground once by <code>gringo</code> in <i>lparse</i>
+ * format, to which the refinements of each iteration are added as ground
+ * rules instead of grounding the whole program again.
+ *
+ * @author stefano
+ *
+ */
+public class GroundProgram {
+
+	private static final String ABDUCED = "abduced_";
+
+	public static GroundProgram from(InputStream stream) throws IOException {
+		if (null == stream)
+			throw new IllegalArgumentException("Illegal 'stream' argument in GroundProgram.from(InputStream): " + stream);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+		List<String> rules = new ArrayList<>();
+		List<String> symbols = new ArrayList<>();
+		List<String> positives = new ArrayList<>();
+		List<String> negatives = new ArrayList<>();
+		String line, models = "1";
+		int section = 0;
+		while (null != (line = reader.readLine())) {
+			line = line.trim();
+			if (line.isEmpty())
+				continue;
+			if ("0".equals(line))
+				section += 1;
+			else if (0 == section)
+				rules.add(line);
+			else if (1 == section)
+				symbols.add(line);
+			else if (2 == section) {
+				if (!"B+".equals(line))
+					positives.add(line);
+			} else if (3 == section) {
+				if (!"B-".equals(line))
+					negatives.add(line);
+			} else
+				models = line;
+		}
+		reader.close();
+		if (section < 4)
+			throw new IOException("truncated lparse program");
+		return new GroundProgram(rules, symbols, positives, negatives, models);
+	}
+
+	private final List<Integer> abduced = new ArrayList<>();
+
+	private final Map<String, Integer> atoms = new HashMap<>();
+
+	private final int last;
+
+	private final String models;
+
+	private final List<String> negatives;
+
+	private final List<String> positives;
+
+	private final List<String> rules;
+
+	private final List<String> symbols;
+
+	private GroundProgram(List<String> rules, List<String> symbols, List<String> positives, List<String> negatives, String models) {
+		this.rules = rules;
+		this.symbols = symbols;
+		this.positives = positives;
+		this.negatives = negatives;
+		this.models = models;
+		int last = 0;
+		for (String symbol : symbols) {
+			int pos = symbol.indexOf(' ');
+			int atom = Integer.parseInt(symbol.substring(0, pos));
+			String name = symbol.substring(1 + pos);
+			atoms.put(name, atom);
+			if (name.startsWith(ABDUCED))
+				abduced.add(atom);
+			last = Math.max(last, atom);
+		}
+		// any number in a rule bounds the atoms in use from above
+		for (String rule : rules)
+			for (String token : rule.split(" "))
+				last = Math.max(last, Integer.parseInt(token));
+		this.last = last;
+	}
+
+	/**
+	 * Returns the ground program extended with the given refinements, each
+	 * of the form <code>bad_solution:-a1,...,an,number_abduced(k).</code>
+	 *
+	 * @param refinements
+	 *            the refinements to add
+	 * @return the extended program, ready to be saved for <code>clasp</code>
+	 */
+	public Solvable refine(Collection<String> refinements) {
+		if (null == refinements)
+			throw new IllegalArgumentException("Illegal 'refinements' argument in GroundProgram.refine(Collection<String>): " + refinements);
+		int bad = 1 + last;
+		Map<Integer, Integer> more = new LinkedHashMap<>();
+		List<String> added = new ArrayList<>();
+		for (String refinement : refinements) {
+			List<String> body = split(refinement.substring(refinement.indexOf(":-") + 2, refinement.lastIndexOf('.')));
+			String count = body.remove(body.size() - 1);
+			int k = Integer.parseInt(count.substring(count.indexOf('(') + 1, count.lastIndexOf(')')));
+			List<Integer> literals = new ArrayList<>();
+			for (String atom : body) {
+				Integer found = atoms.get(atom);
+				if (null == found) {
+					// an atom that was never ground cannot hold
+					literals = null;
+					break;
+				}
+				literals.add(found);
+			}
+			if (null != literals) {
+				// bad :- a1,...,an, k { abduced atoms }, not k+1 { abduced atoms }.
+				if (k > 0)
+					literals.add(atLeast(more, k));
+				StringBuilder rule = new StringBuilder().append("1 ").append(bad).append(' ').append(1 + literals.size()).append(" 1 ").append(atLeast(more, 1 + k));
+				for (int literal : literals)
+					rule.append(' ').append(literal);
+				added.add(rule.toString());
+			}
+		}
+		for (Map.Entry<Integer, Integer> entry : more.entrySet()) {
+			StringBuilder rule = new StringBuilder().append("2 ").append(entry.getValue()).append(' ').append(abduced.size()).append(" 0 ").append(entry.getKey());
+			for (int atom : abduced)
+				rule.append(' ').append(atom);
+			added.add(rule.toString());
+		}
+		return (iter, stream) -> {
+			if (null == stream)
+				throw new IllegalArgumentException("Illegal 'stream' argument in GroundProgram.save(int, OutputStream): " + stream);
+			Emitter emitter = new Emitter(stream);
+			for (String rule : rules)
+				emitter.println(rule);
+			for (String rule : added)
+				emitter.println(rule);
+			emitter.println("0");
+			for (String symbol : symbols)
+				emitter.println(symbol);
+			emitter.println("0");
+			emitter.println("B+");
+			for (String atom : positives)
+				emitter.println(atom);
+			emitter.println("0");
+			emitter.println("B-");
+			for (String atom : negatives)
+				emitter.println(atom);
+			if (!added.isEmpty())
+				emitter.append(bad).println();
+			emitter.println("0");
+			emitter.println(models);
+			boolean result = !emitter.checkError();
+			emitter.close();
+			return result;
+		};
+	}
+
+	private int atLeast(Map<Integer, Integer> more, int bound) {
+		Integer result = more.get(bound);
+		if (null == result) {
+			result = 2 + last + more.size();
+			more.put(bound, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Splits a rule body on the commas that are not nested in terms or
+	 * quotations.
+	 */
+	private static List<String> split(String body) {
+		List<String> result = new ArrayList<>();
+		int depth = 0, start = 0;
+		boolean quoted = false;
+		for (int i = 0; i < body.length(); i++) {
+			char c = body.charAt(i);
+			if ('"' == c)
+				quoted = !quoted;
+			else if (!quoted && '(' == c)
+				depth += 1;
+			else if (!quoted && ')' == c)
+				depth -= 1;
+			else if (!quoted && 0 == depth && ',' == c) {
+				result.add(body.substring(start, i));
+				start = 1 + i;
+			}
+		}
+		result.add(body.substring(start));
+		return result;
+	}
+
+}
@@ -6,6 +6,7 @@ package xhail.core;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -101,16 +102,31 @@ public class Logger {
 		System.out.println("  --blind,-b          : Remove colours from the program output");
 		System.out.println("  --clasp,-c <path>   : Use given <path> as path for clasp 3");
 		System.out.println("  --debug,-d          : Leave temporary files in ./temp");
+		System.out.println("  --depth,-x <num>    : Deepen the kernel one level at a time up to <num>, while examples stay uncovered");
+		System.out.println("  --eager,-e          : Start the next abductive iteration during induction");
 		System.out.println("  --full,-f           : Show a more detailed output");
 		System.out.println("  --gringo,-g <path>  : Use given <path> as path for gringo 3");
 		System.out.println("  --help,-h           : Print this help and exit");
+		System.out.println("  --heuristic,-y      : Hint clasp towards small deltas and previous hypotheses");
 		System.out.println("  --iter,-i <num>     : Run <num> iterations for non-minimal answers");
 		System.out.println("  --kill,-k <num>     : Stop the program after <num> seconds");
+		System.out.println("  --lean,-l           : Use a leaner encoding for the inductive phase");
 		System.out.println("  --mute,-m           : Suppress warning messages");
+		System.out.println("  --portfolio,-q <num>: Race up to <num> clasp configurations on each induction");
 		System.out.println("  --prettify,-p       : Nicely format current problem");
+		System.out.println("  --reduce,-u         : Remove renamed literals and clauses before induction");
+		System.out.println("  --resume,-z <path>  : Checkpoint the search to <path> and resume from it");
+		System.out.println("  --reuse,-r          : Ground the abductive program only once");
+		System.out.println("  --sample,-w <num>   : Keep up to <num> diverse abductive models per call");
+		System.out.println("  --score <path>      : Score the answers on the test set in <path>, repeatable");
 		System.out.println("  --search,-s         : Search for clasp 3 and gringo 3");
+		System.out.println("  --serve <addr>      : Serve clasp calls on [<host>:]<port> (localhost by default) to holders of $XHAIL_SECRET");
+		System.out.println("  --shards,-n <num>   : Learn on up to <num> shards of examples, then merge");
+		System.out.println("  --slice             : Leave out background rules that cannot affect examples, modes or displays");
 		System.out.println("  --terminate,-t      : Stop searching hypotheses after first match");
+		System.out.println("  --threads,-j <num>  : Share <num> cores among all the clasp calls");
 		System.out.println("  --version,-v        : Print version information and exit");
+		System.out.println("  --workers <addrs>   : Ship clasp calls to the workers at <host>:<port>,... sharing $XHAIL_SECRET");
 		System.out.println();
 		System.out.println(String.format("Example:   java -jar %s.jar  -c /Library/Clasp/clasp  -g /Library/Gringo/gringo  example.pl", SIGNATURE));
 		System.out.println();
@@ -178,10 +194,29 @@ public class Logger {
 			stat(config, String.format("Time        : %.3fs  (loading: %.3fs  1st answer: %.3fs)", Answers.getNow(), Answers.getLoading(), Answers.getFirst()));
 			stat(config, String.format("  abduction : %.3fs", Answers.getAbduction()));
 			stat(config, String.format("  deduction : %.3fs", Answers.getDeduction()));
-			stat(config, String.format("  induction : %.3fs\n", Answers.getInduction()));
+			if (Dialler.wins().isEmpty())
+				stat(config, String.format("  induction : %.3fs\n", Answers.getInduction()));
+			else {
+				stat(config, String.format("  induction : %.3fs", Answers.getInduction()));
+				stat(config, String.format("  portfolio : %s\n", Dialler.wins()));
+			}
 		}
 	}
 
+	/**
+	 * Prints the scores of an answer on the test sets.
+	 */
+	public static void stamp(Config config, int id, Map<Path, Scorer.Score> scores) {
+		if (null == config)
+			throw new IllegalArgumentException("Illegal 'config' argument in Logger.stamp(Config, int, Map<Path, Scorer.Score>): " + config);
+		if (null == scores)
+			throw new IllegalArgumentException("Illegal 'scores' argument in Logger.stamp(Config, int, Map<Path, Scorer.Score>): " + scores);
+		section(config, String.format("Scores of answer %d:", id));
+		for (Map.Entry<Path, Scorer.Score> entry : scores.entrySet())
+			subSection(config, entry.getKey().toString(), entry.getValue().toString());
+		System.out.println();
+	}
+
 	private static void stat(Config config, String value) {
 		if (null == config)
 			throw new IllegalArgumentException("Illegal 'config' argument in Logger.stampStat(Config, String): " + config);
@@ -227,7 +262,7 @@ public class Logger {
 		System.exit(1);
 	}
 
-	public static void warning(boolean mute, String message) {
+	public static synchronized void warning(boolean mute, String message) {
 		if (null != message && !mute)
 			if (!memory.contains(message)) {
 				memory.add(message);
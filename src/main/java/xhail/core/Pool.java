@@ -0,0 +1,174 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers that calls are shipped to, see {@link Worker}. Idle workers wait
+ * in a queue and each call takes the first one that frees up, so faster
+ * nodes end up taking more calls. A call cut short is retried on another
+ * worker, while the one that failed rests for a while.
+ *
+ * @author stefano
+ *
+ */
+public class Pool {
+
+	/**
+	 * Most workers a call is tried on before running it locally.
+	 */
+	private static final int ATTEMPTS = 3;
+
+	private static final int CHUNK = 1 << 16;
+
+	/**
+	 * Milliseconds a worker rests after a failed call.
+	 */
+	private static final long REST = 10_000L;
+
+	/**
+	 * Milliseconds without even a heartbeat after which a worker is deemed
+	 * lost.
+	 */
+	private static final int SILENCE = (int) (4 * Worker.HEARTBEAT);
+
+	/**
+	 * Milliseconds to wait for a connection to a worker.
+	 */
+	private static final int TIMEOUT = 5_000;
+
+	private static Pool pool = null;
+
+	/**
+	 * Returns the pool of the given workers, shared by all the calls of this
+	 * process.
+	 */
+	static synchronized Pool get(Collection<InetSocketAddress> workers, byte[] secret) {
+		if (null == workers)
+			throw new IllegalArgumentException("Illegal 'workers' argument in Pool.get(Collection<InetSocketAddress>, byte[]): " + workers);
+		if (null == secret)
+			throw new IllegalArgumentException("Illegal 'secret' argument in Pool.get(Collection<InetSocketAddress>, byte[]): " + secret);
+		if (null == pool)
+			pool = new Pool(workers, secret);
+		return pool;
+	}
+
+	private final BlockingQueue<InetSocketAddress> idle = new LinkedBlockingQueue<>();
+
+	private final byte[] secret;
+
+	private final int size;
+
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Pool(Collection<InetSocketAddress> workers, byte[] secret) {
+		this.idle.addAll(workers);
+		this.secret = secret;
+		this.size = workers.size();
+	}
+
+	private static void copy(DataInputStream input, OutputStream output, int length) throws IOException {
+		byte[] buffer = new byte[Math.min(length, CHUNK)];
+		while (length > 0) {
+			int read = input.read(buffer, 0, Math.min(length, buffer.length));
+			if (read < 0)
+				throw new IOException("truncated response");
+			output.write(buffer, 0, read);
+			length -= read;
+		}
+	}
+
+	/**
+	 * Copies the chunks of a section of the response up to its end, skipping
+	 * heartbeats.
+	 */
+	private static void section(DataInputStream input, OutputStream output) throws IOException {
+		for (int length = input.readInt(); length >= 0; length = input.readInt())
+			copy(input, output, length);
+	}
+
+	/**
+	 * Ships a program to the first idle worker, retrying on others if the
+	 * call is cut short, and saves the messages of <code>gringo</code> and
+	 * the output of <code>clasp</code> in the given files.
+	 *
+	 * @return whether a worker completed the call, or else it should be run
+	 *         locally
+	 */
+	boolean solve(Dialler dialler, byte[] program, boolean grounded, Collection<String> arguments, Path errors, Path target) throws InterruptedException {
+		if (null == dialler)
+			throw new IllegalArgumentException("Illegal 'dialler' argument in Pool.solve(Dialler, byte[], boolean, Collection<String>, Path, Path): " + dialler);
+		if (null == program)
+			throw new IllegalArgumentException("Illegal 'program' argument in Pool.solve(Dialler, byte[], boolean, Collection<String>, Path, Path): " + program);
+		if (null == arguments)
+			throw new IllegalArgumentException("Illegal 'arguments' argument in Pool.solve(Dialler, byte[], boolean, Collection<String>, Path, Path): " + arguments);
+		for (int attempt = 0; attempt < Math.min(ATTEMPTS, size); attempt++) {
+			// every worker may be resting after a failure
+			final InetSocketAddress worker = idle.poll(REST, TimeUnit.MILLISECONDS);
+			if (null == worker)
+				return false;
+			boolean healthy = true;
+			try (Socket socket = dialler.connect(new Socket())) {
+				socket.connect(new InetSocketAddress(worker.getHostString(), worker.getPort()), TIMEOUT);
+				// workers send heartbeats, so a long silence means a lost one
+				socket.setSoTimeout(SILENCE);
+				DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				byte[] nonce = new byte[Worker.NONCE];
+				input.readFully(nonce);
+				byte[] signature = Worker.sign(secret, nonce);
+				output.writeInt(Worker.MAGIC);
+				output.writeInt(signature.length);
+				output.write(signature);
+				output.writeBoolean(grounded);
+				output.writeInt(arguments.size());
+				for (String argument : arguments)
+					output.writeUTF(argument);
+				output.writeInt(program.length);
+				output.write(program);
+				output.flush();
+
+				try (OutputStream stream = Files.newOutputStream(errors)) {
+					section(input, stream);
+				}
+				try (OutputStream stream = Files.newOutputStream(target)) {
+					section(input, stream);
+				}
+				return true;
+			} catch (IOException e) {
+				// a cancelled call is not the fault of the worker
+				healthy = dialler.isCancelled();
+				if (healthy)
+					return false;
+			} finally {
+				if (healthy)
+					idle.add(worker);
+				else
+					timer.schedule(() -> idle.add(worker), REST, TimeUnit.MILLISECONDS);
+			}
+		}
+		return false;
+	}
+
+}
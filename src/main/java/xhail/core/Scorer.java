@@ -0,0 +1,291 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import xhail.core.entities.Problem;
+import xhail.core.parser.Parser;
+import xhail.core.statements.Example;
+import xhail.core.terms.Atom;
+import xhail.core.terms.Clause;
+import xhail.core.terms.Term;
+
+/**
+ * Scores hypotheses on held-out test sets without calling
+ * <code>gringo</code> or <code>clasp</code>: the hypotheses, the background
+ * and the facts of each test set are materialised by an {@link Evaluator},
+ * and the <code>#example</code> statements of the test set are looked up in
+ * its model. Test sets are read as streams, their facts are stored as they
+ * are read, and they are scored in parallel.
+ *
+ * @author stefano
+ *
+ */
+public class Scorer {
+
+	public static class Builder implements Buildable<Scorer> {
+
+		private final List<Clause> clauses = new ArrayList<>();
+
+		private final Problem problem;
+
+		public Builder(Problem problem) {
+			if (null == problem)
+				throw new IllegalArgumentException("Illegal 'problem' argument in Scorer.Builder(Problem): " + problem);
+			this.problem = problem;
+		}
+
+		public Builder addClause(Clause clause) {
+			if (null == clause)
+				throw new IllegalArgumentException("Illegal 'clause' argument in Scorer.Builder.addClause(Clause): " + clause);
+			clauses.add(clause);
+			return this;
+		}
+
+		public Builder addClauses(Clause[] clauses) {
+			if (null == clauses)
+				throw new IllegalArgumentException("Illegal 'clauses' argument in Scorer.Builder.addClauses(Clause[]): " + clauses);
+			for (Clause clause : clauses)
+				addClause(clause);
+			return this;
+		}
+
+		@Override
+		public Scorer build() {
+			return new Scorer(this);
+		}
+
+	}
+
+	/**
+	 * Counts of the examples of a test set: positive examples are covered
+	 * when they are derived, negative ones when they are not. Examples whose
+	 * predicate is left to <code>gringo</code> are not scored, and a test set
+	 * that cannot be read has an error instead of counts.
+	 */
+	public static class Score {
+
+		private final String error;
+
+		private int falseNegatives = 0;
+
+		private int falsePositives = 0;
+
+		private int statements = 0;
+
+		private int trueNegatives = 0;
+
+		private int truePositives = 0;
+
+		private int unscored = 0;
+
+		private Score(String error) {
+			this.error = error;
+		}
+
+		/**
+		 * Returns the ratio of the scored examples that are covered, or
+		 * <code>NaN</code> if none was scored.
+		 */
+		public final double getAccuracy() {
+			int total = truePositives + trueNegatives + falsePositives + falseNegatives;
+			return 0 == total ? Double.NaN : (truePositives + trueNegatives) / (double) total;
+		}
+
+		/**
+		 * Returns the ratio of the positive examples that are derived, or
+		 * <code>NaN</code> if there is none.
+		 */
+		public final double getCoverage() {
+			int total = truePositives + falseNegatives;
+			return 0 == total ? Double.NaN : truePositives / (double) total;
+		}
+
+		/**
+		 * Returns why the test set could not be scored, or <code>null</code>
+		 * if it was.
+		 */
+		public final String getError() {
+			return error;
+		}
+
+		public final int getFalseNegatives() {
+			return falseNegatives;
+		}
+
+		public final int getFalsePositives() {
+			return falsePositives;
+		}
+
+		public final int getStatements() {
+			return statements;
+		}
+
+		public final int getTrueNegatives() {
+			return trueNegatives;
+		}
+
+		public final int getTruePositives() {
+			return truePositives;
+		}
+
+		public final int getUnscored() {
+			return unscored;
+		}
+
+		public final boolean hasError() {
+			return null != error;
+		}
+
+		@Override
+		public String toString() {
+			if (null != error)
+				return "error: " + error;
+			return String.format("coverage: %.3f  accuracy: %.3f  (tp: %d  fn: %d  tn: %d  fp: %d)", getCoverage(), getAccuracy(), truePositives, falseNegatives,
+					trueNegatives, falsePositives);
+		}
+
+	}
+
+	private final String[] background;
+
+	private final Config config;
+
+	private final String[] domains;
+
+	private final String[] hypotheses;
+
+	private Scorer(Builder builder) {
+		if (null == builder)
+			throw new IllegalArgumentException("Illegal 'builder' argument in Scorer(Scorer.Builder): " + builder);
+		this.background = builder.problem.getBackground();
+		this.config = builder.problem.getConfig();
+		this.domains = builder.problem.getDomains();
+		this.hypotheses = new String[builder.clauses.size()];
+		for (int i = 0; i < hypotheses.length; i++)
+			hypotheses[i] = builder.clauses.get(i).asGuarded();
+	}
+
+	/**
+	 * Splits the source in statements, skipping comments, without reading it
+	 * all at once: a dot ends a statement unless it is quoted or part of a
+	 * range. {@link xhail.core.parser.InputStates} are not used since they
+	 * share their buffer, while test sets are read in parallel.
+	 */
+	private static void split(Reader reader, Consumer<String> consumer) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		boolean quoted = false;
+		int c = reader.read();
+		while (c >= 0) {
+			int next = reader.read();
+			if (!quoted && '%' == c)
+				while (next >= 0 && '\n' != next)
+					next = reader.read();
+			else {
+				builder.append((char) c);
+				if ('"' == c)
+					quoted = !quoted;
+				else if ((quoted && '\\' == c || !quoted && '.' == c && '.' == next) && next >= 0) {
+					builder.append((char) next);
+					next = reader.read();
+				} else if (!quoted && '.' == c) {
+					consumer.accept(builder.toString().trim());
+					builder.setLength(0);
+				}
+			}
+			c = next;
+		}
+		if (!builder.toString().trim().isEmpty())
+			consumer.accept(builder.toString().trim());
+	}
+
+	/**
+	 * Scores the hypotheses on a single test set, made of facts and
+	 * <code>#example</code> statements. A test set that cannot be read is
+	 * not scored at all, rather than on the part read before the error.
+	 */
+	public Score score(Path path) {
+		if (null == path)
+			throw new IllegalArgumentException("Illegal 'path' argument in Scorer.score(Path): " + path);
+		Evaluator.Builder builder = new Evaluator.Builder().addStatements(background).addStatements(hypotheses);
+		for (String statement : domains)
+			builder.addDomain(statement);
+		List<Example> examples = new ArrayList<>();
+		Score result = new Score(null);
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			split(reader, statement -> {
+				if (statement.startsWith("#example") && statement.endsWith("."))
+					examples.add(Parser.parseExample(statement.substring("#example".length(), statement.length() - 1).trim()));
+				else if (statement.startsWith("#domain"))
+					builder.addDomain(statement);
+				else if (!statement.startsWith("#") || statement.startsWith("#const")) {
+					builder.addStatement(statement);
+					result.statements += 1;
+				}
+			});
+		} catch (IOException e) {
+			return new Score(String.format("cannot read test set '%s' (%s)", path, e.getMessage()));
+		}
+		Evaluator evaluator = builder.build();
+		// -1 for examples that cannot be scored, 1 for derived ones
+		int[] outcomes = new int[examples.size()];
+		Arrays.parallelSetAll(outcomes, i -> {
+			Atom atom = examples.get(i).getAtom();
+			if (evaluator.isOpen(atom.getIdentifier()))
+				return -1;
+			Term[] terms = atom.getTerms();
+			String[] arguments = new String[terms.length];
+			for (int j = 0; j < terms.length; j++)
+				arguments[j] = terms[j].toString();
+			return evaluator.holds(atom.getIdentifier(), arguments) ? 1 : 0;
+		});
+		for (int i = 0; i < outcomes.length; i++)
+			if (outcomes[i] < 0)
+				result.unscored += 1;
+			else if (examples.get(i).isNegated())
+				if (outcomes[i] > 0)
+					result.falsePositives += 1;
+				else
+					result.trueNegatives += 1;
+			else if (outcomes[i] > 0)
+				result.truePositives += 1;
+			else
+				result.falseNegatives += 1;
+		if (result.unscored > 0)
+			Logger.warning(config.isMute(), String.format("%d example/s of '%s' depend on statements that cannot be evaluated without gringo", result.unscored, path));
+		return result;
+	}
+
+	/**
+	 * Scores the hypotheses on each of the test sets in parallel.
+	 */
+	public Map<Path, Score> score(Collection<Path> paths) {
+		if (null == paths)
+			throw new IllegalArgumentException("Illegal 'paths' argument in Scorer.score(Collection<Path>): " + paths);
+		Map<Path, Score> result = new LinkedHashMap<>();
+		for (Path path : paths)
+			result.put(path, null);
+		paths.parallelStream().forEach(path -> {
+			Score score = score(path);
+			synchronized (result) {
+				result.put(path, score);
+			}
+		});
+		return result;
+	}
+
+}
@@ -3,6 +3,7 @@
  */
 package xhail.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -10,6 +11,18 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import xhail.core.entities.Grounding;
 import xhail.core.entities.Problem;
@@ -17,6 +30,8 @@ import xhail.core.statements.Display;
 import xhail.core.statements.Example;
 import xhail.core.statements.ModeB;
 import xhail.core.statements.ModeH;
+import xhail.core.terms.Placemarker;
+import xhail.core.terms.Scheme;
 
 /**
  * @author stefano
@@ -24,6 +39,33 @@ import xhail.core.statements.ModeH;
  */
 public class Utils {
 
+	private static final Pattern NEGATION = Pattern.compile("\\bnot\\s");
+
+	private static final Pattern QUOTED = Pattern.compile("\"([^\"\\\\]|\\\\.)*\"");
+
+	/**
+	 * Returns the relevant background of a problem where the definite,
+	 * stratified part not depending on the heads of the modes is replaced by
+	 * the facts it entails.
+	 */
+	public static String[] closure(Problem problem) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Utils.closure(Problem): " + problem);
+		Evaluator.Builder builder = new Evaluator.Builder().addStatements(problem.getSlice());
+		for (String statement : problem.getDomains())
+			builder.addDomain(statement);
+		for (ModeH mode : problem.getModeHs())
+			builder.addOpen(mode.getScheme().getIdentifier());
+		Evaluator evaluator = builder.build();
+		String[] facts = evaluator.getFacts();
+		String[] remainder = evaluator.getRemainder();
+		if (problem.getConfig().isDebug() && remainder.length < problem.getSlice().length)
+			Logger.message(String.format("*** Info  (%s): materialised %d fact/s from %d definite background statement/s", Logger.SIGNATURE, facts.length, problem.getSlice().length - remainder.length));
+		String[] result = Arrays.copyOf(facts, facts.length + remainder.length);
+		System.arraycopy(remainder, 0, result, facts.length, remainder.length);
+		return result;
+	}
+
 	public static boolean dump(Problem problem, OutputStream stream) {
 		if (null == problem)
 			throw new IllegalArgumentException("Illegal 'problem' argument in Utils.save(Problem, OutputStream): " + problem);
@@ -65,6 +107,132 @@ public class Utils {
 		return false;
 	}
 
+	/**
+	 * Returns the position of the <code>:-</code> separating head and body
+	 * of a statement, or -1 if there is none outside of quotations.
+	 */
+	static int neck(String statement) {
+		boolean quoted = false;
+		for (int i = 0; i + 1 < statement.length(); i++) {
+			char c = statement.charAt(i);
+			if ('"' == c)
+				quoted = !quoted;
+			else if (!quoted && ':' == c && '-' == statement.charAt(i + 1))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Renders the part of the abductive program following the refinements,
+	 * which only depends on whether refinements are active.
+	 */
+	public static byte[] postlude(Problem problem, boolean refined) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Utils.postlude(Problem, boolean): " + problem);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Emitter emitter = new Emitter(stream);
+		emitter.println();
+		emitter.println("%%% E. Examples");
+		for (Example example : problem.getExamples())
+			example.asClauses(emitter);
+		emitter.println();
+		emitter.println("%%% I. Inflation");
+		if (refined) {
+			emitter.println(":-bad_solution.");
+			emitter.println("number_abduced(V):-V:=#sum[ number_abduced(_,W) =W ].");
+		}
+		for (ModeH mode : problem.getModeHs()) {
+			mode.asClauses(emitter, refined);
+			if (problem.getConfig().isHeuristic())
+				emitter.println(mode.asHeuristic());
+		}
+		emitter.println();
+		emitter.close();
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Returns the predicates occurring in a statement outside of terms and
+	 * quotations, that is the identifiers of its atoms.
+	 */
+	static Set<String> predicates(String statement) {
+		Set<String> result = new LinkedHashSet<>();
+		int depth = 0, length = statement.length(), i = 0;
+		while (i < length) {
+			char c = statement.charAt(i);
+			if ('"' == c) {
+				i += 1;
+				while (i < length && '"' != statement.charAt(i))
+					i += '\\' == statement.charAt(i) ? 2 : 1;
+				i += 1;
+			} else if ('(' == c) {
+				depth += 1;
+				i += 1;
+			} else if (')' == c) {
+				depth -= 1;
+				i += 1;
+			} else if ('#' == c || Character.isLetterOrDigit(c) || '_' == c) {
+				int start = i;
+				i += 1;
+				while (i < length && (Character.isLetterOrDigit(statement.charAt(i)) || '_' == statement.charAt(i) || '\'' == statement.charAt(i)))
+					i += 1;
+				String token = statement.substring(start, i);
+				if (0 == depth && Character.isLowerCase(c) && !"not".equals(token))
+					result.add(token);
+			} else
+				i += 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Renders the part of the inductive program preceding the compression
+	 * rules, which is the same for every grounding of a problem.
+	 */
+	public static byte[] prelude(Grounding grounding) {
+		if (null == grounding)
+			throw new IllegalArgumentException("Illegal 'grounding' argument in Utils.prelude(Grounding): " + grounding);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Emitter emitter = new Emitter(stream);
+		for (String filter : grounding.getFilters())
+			emitter.println(filter);
+		emitter.println();
+		emitter.println("%%% B. Background");
+		for (String statement : grounding.getDomains())
+			emitter.println(statement);
+		for (String statement : grounding.getProblem().getClosure())
+			emitter.println(statement);
+		emitter.println();
+		emitter.println("%%% E. Examples");
+		for (Example example : grounding.getExamples())
+			example.asClauses(emitter);
+		emitter.println();
+		emitter.println("%%% C. Compression");
+		emitter.close();
+		return stream.toByteArray();
+	}
+
+	/**
+	 * Renders the part of the abductive program preceding the refinements.
+	 */
+	public static byte[] prelude(Problem problem) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Utils.prelude(Problem): " + problem);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		Emitter emitter = new Emitter(stream);
+		for (String filter : problem.getFilters())
+			emitter.println(filter);
+		emitter.println();
+		emitter.println("%%% B. Background");
+		for (String statement : problem.getDomains())
+			emitter.println(statement);
+		for (String statement : problem.getClosure())
+			emitter.println(statement);
+		emitter.close();
+		return stream.toByteArray();
+	}
+
 	public static boolean save(Grounding grounding, int iter, OutputStream stream) {
 		if (null == grounding)
 			throw new IllegalArgumentException("Illegal 'grounding' argument in Utils.save(Grounding, int, OutputStream): " + grounding);
@@ -72,34 +240,13 @@ public class Utils {
 			throw new IllegalArgumentException("Illegal 'iter' argument in Utils.save(Grounding, int, OutputStream): " + iter);
 		if (null == stream)
 			throw new IllegalArgumentException("Illegal 'stream' argument in Utils.save(Grounding, int, OutputStream): " + stream);
-		try {
-			PrintStream printer = new PrintStream(stream);
-			for (String filter : grounding.getFilters())
-				printer.println(filter);
-			printer.println();
-			printer.println("%%% B. Background");
-			for (String statement : grounding.getDomains())
-				printer.println(statement);
-			for (String statement : grounding.getBackground())
-				printer.println(statement);
-			// for (Display display : grounding.getDisplays())
-			// printer.println(display.asClauses());
-			printer.println();
-			printer.println("%%% E. Examples");
-			for (Example example : grounding.getExamples())
-				for (String statement : example.asClauses())
-					printer.println(statement);
-			printer.println();
-			printer.println("%%% C. Compression");
-			for (String statement : grounding.asClauses())
-				printer.println(statement);
-			printer.println();
-			printer.close();
-			return true;
-		} catch (Exception e) {
-			Logger.error("cannot stream data to process");
-		}
-		return false;
+		Emitter emitter = new Emitter(stream);
+		emitter.write(grounding.getProblem().getPrelude(grounding));
+		grounding.asClauses(emitter);
+		emitter.println();
+		boolean result = !emitter.checkError();
+		emitter.close();
+		return result;
 	}
 
 	public static boolean save(Problem problem, int iter, OutputStream stream) {
@@ -109,42 +256,15 @@ public class Utils {
 			throw new IllegalArgumentException("Illegal 'iter' argument in Utils.save(Problem, int, OutputStream): " + iter);
 		if (null == stream)
 			throw new IllegalArgumentException("Illegal 'stream' argument in Utils.save(Problem, int, OutputStream): " + stream);
-		try {
-			PrintStream printer = new PrintStream(stream);
-			for (String filter : problem.getFilters())
-				printer.println(filter);
-			printer.println();
-			printer.println("%%% B. Background");
-			for (String statement : problem.getDomains())
-				printer.println(statement);
-			for (String statement : problem.getBackground())
-				printer.println(statement);
-			// for (Display display : problem.getDisplays())
-			// printer.println(display.asClauses());
-			for (String refinement : problem.getRefinements())
-				printer.println(refinement);
-			printer.println();
-			printer.println("%%% E. Examples");
-			for (Example example : problem.getExamples())
-				for (String statement : example.asClauses())
-					printer.println(statement);
-			printer.println();
-			printer.println("%%% I. Inflation");
-			if (iter > 0) {
-				printer.println(":-bad_solution.");
-				printer.println("number_abduced(V):-V:=#sum[ number_abduced(_,W) =W ].");
-			}
-			for (ModeH mode : problem.getModeHs())
-				for (String statement : mode.asClauses())
-					if (iter > 0 || !statement.startsWith("number_abduced("))
-						printer.println(statement);
-			printer.println();
-			printer.close();
-			return true;
-		} catch (Exception e) {
-			Logger.error("cannot stream data to process");
-		}
-		return false;
+		Emitter emitter = new Emitter(stream);
+		emitter.write(problem.getPrelude());
+		for (String refinement : problem.getRefinements())
+			emitter.println(refinement);
+		// refinements may also come from a previous session
+		emitter.write(problem.getPostlude(iter > 0 || !problem.getRefinements().isEmpty()));
+		boolean result = !emitter.checkError();
+		emitter.close();
+		return result;
 	}
 
 	public static boolean saveTemp(Grounding grounding, int iter, Path path) {
@@ -195,4 +315,84 @@ public class Utils {
 		return false;
 	}
 
+	/**
+	 * Returns the background statements of a problem that can influence its
+	 * examples, modes or displays: a rule is kept if a predicate in its head
+	 * is reachable from theirs in the predicate dependency graph. Directives,
+	 * constraints, heads with bounded aggregates and rules on a cycle through
+	 * negation are always kept, as they can rule out answer sets.
+	 */
+	public static String[] slice(Problem problem) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Utils.slice(Problem): " + problem);
+		String[] background = problem.getBackground();
+		boolean[] kept = new boolean[background.length];
+		List<Set<String>> predicates = new ArrayList<>(background.length);
+		Map<String, List<Integer>> rules = new HashMap<>();
+		Deque<String> pending = new ArrayDeque<>();
+		for (Display display : problem.getDisplays())
+			pending.add(display.getIdentifier());
+		for (Example example : problem.getExamples())
+			pending.add(example.getAtom().getIdentifier());
+		List<Scheme> schemes = new ArrayList<>();
+		for (ModeH mode : problem.getModeHs())
+			schemes.add(mode.getScheme());
+		for (ModeB mode : problem.getModeBs())
+			schemes.add(mode.getScheme());
+		for (Scheme scheme : schemes) {
+			pending.add(scheme.getIdentifier());
+			for (Placemarker placemarker : scheme.getPlacemarkers())
+				pending.add(placemarker.getIdentifier());
+		}
+		for (String statement : problem.getDomains())
+			pending.addAll(predicates(statement.substring("#domain".length())));
+		for (int i = 0; i < background.length; i++) {
+			String statement = background[i];
+			predicates.add(predicates(statement));
+			int neck = neck(statement);
+			String head = (neck < 0 ? statement.substring(0, statement.length() - 1) : statement.substring(0, neck)).trim();
+			boolean bounded = (head.contains("{") || head.contains("[")) && !(head.startsWith("{") && head.endsWith("}") || head.startsWith("[") && head.endsWith("]"));
+			if (statement.startsWith("#") || head.isEmpty() || bounded) {
+				kept[i] = true;
+				pending.addAll(predicates.get(i));
+			} else
+				for (String predicate : predicates(head))
+					rules.computeIfAbsent(predicate, k -> new ArrayList<>()).add(i);
+		}
+		// p:-not p. or q:-not r. r:-q. have no answer set
+		for (int i = 0; i < background.length; i++)
+			if (!kept[i] && NEGATION.matcher(QUOTED.matcher(background[i]).replaceAll("")).find()) {
+				int neck = neck(background[i]);
+				Set<String> heads = neck < 0 ? Collections.emptySet() : predicates(background[i].substring(0, neck));
+				Set<String> reached = new HashSet<>();
+				Deque<String> frontier = new ArrayDeque<>(neck < 0 ? Collections.emptySet() : predicates(background[i].substring(neck)));
+				while (!kept[i] && !frontier.isEmpty()) {
+					String predicate = frontier.pop();
+					if (heads.contains(predicate)) {
+						kept[i] = true;
+						pending.addAll(predicates.get(i));
+					} else if (reached.add(predicate))
+						for (int j : rules.getOrDefault(predicate, Collections.emptyList()))
+							frontier.addAll(predicates.get(j));
+				}
+			}
+		Set<String> relevant = new HashSet<>();
+		while (!pending.isEmpty()) {
+			String predicate = pending.pop();
+			if (relevant.add(predicate))
+				for (int i : rules.getOrDefault(predicate, Collections.emptyList()))
+					if (!kept[i]) {
+						kept[i] = true;
+						pending.addAll(predicates.get(i));
+					}
+		}
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < background.length; i++)
+			if (kept[i])
+				result.add(background[i]);
+		if (problem.getConfig().isDebug() && result.size() < background.length)
+			Logger.message(String.format("*** Info  (%s): sliced %d irrelevant background statement/s out of %d", Logger.SIGNATURE, background.length - result.size(), background.length));
+		return result.toArray(new String[result.size()]);
+	}
+
 }
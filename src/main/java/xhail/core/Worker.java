@@ -0,0 +1,285 @@
+/**
+ *
+ */
+package xhail.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Solver worker: runs <code>gringo</code> and <code>clasp</code> on the
+ * programs shipped by other instances through a {@link Pool}, and streams
+ * the output of <code>clasp</code> back as it is produced.
+ * <p>
+ * On connection the worker sends a random nonce. A request is made of
+ * {@link #MAGIC}, the signature of the nonce with the shared secret, whether
+ * the program is already ground, the arguments for <code>clasp</code> and
+ * the program itself. The response is made of two sections, the messages of
+ * <code>gringo</code> and the output of <code>clasp</code>, each sent in
+ * chunks and ended by a negative length; empty chunks are heartbeats. A
+ * response cut short tells the caller to retry elsewhere, while a caller
+ * going away stops the call.
+ * <p>
+ * The secret only keeps out callers that do not know it: programs and
+ * outputs travel in clear, and <code>gringo</code> runs whatever Lua code
+ * a program contains, so workers must only be reachable on a trusted
+ * network.
+ *
+ * @author stefano
+ *
+ */
+public class Worker {
+
+	/**
+	 * Call being served: the processes it runs are destroyed as soon as it
+	 * is closed, when the caller goes away or the call is over.
+	 */
+	private static class Call {
+
+		private boolean closed = false;
+
+		private final DataOutputStream output;
+
+		private Process process = null;
+
+		private final Socket socket;
+
+		private Call(Socket socket, DataOutputStream output) {
+			this.socket = socket;
+			this.output = output;
+		}
+
+		private synchronized void close() {
+			closed = true;
+			if (null != process)
+				process.destroy();
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+
+		private synchronized Process start(ProcessBuilder builder) throws IOException {
+			if (closed)
+				throw new IOException("closed");
+			return process = builder.start();
+		}
+
+		/**
+		 * Sends a chunk, a heartbeat if <code>length</code> is zero or the end
+		 * of a section if it is negative.
+		 */
+		private void write(byte[] buffer, int length) throws IOException {
+			synchronized (output) {
+				output.writeInt(length);
+				if (length > 0)
+					output.write(buffer, 0, length);
+				output.flush();
+			}
+		}
+
+	}
+
+	private static final int CHUNK = 1 << 16;
+
+	/**
+	 * Milliseconds between two heartbeats.
+	 */
+	static final long HEARTBEAT = 5_000L;
+
+	static final int MAGIC = 0x5848494C;
+
+	static final int NONCE = 32;
+
+	private static final SecureRandom random = new SecureRandom();
+
+	/**
+	 * Returns the signature of a nonce with the given secret.
+	 */
+	static byte[] sign(byte[] secret, byte[] nonce) throws IOException {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+			return mac.doFinal(nonce);
+		} catch (GeneralSecurityException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private final InetSocketAddress address;
+
+	private final String clasp;
+
+	private final String gringo;
+
+	private final byte[] secret;
+
+	private final ExecutorService service = Executors.newCachedThreadPool();
+
+	private final int threads;
+
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public Worker(Config config) {
+		if (null == config)
+			throw new IllegalArgumentException("Illegal 'config' argument in Worker(Config): " + config);
+		if (null == config.getServe() || null == config.getSecret())
+			throw new IllegalArgumentException("Illegal 'config' argument in Worker(Config): " + config);
+		this.address = config.getServe();
+		this.clasp = config.getClasp().toAbsolutePath().toString();
+		this.gringo = config.getGringo().toAbsolutePath().toString();
+		this.secret = config.getSecret();
+		this.threads = config.getThreads();
+	}
+
+	private void handle(Socket socket) {
+		Path program = null, middle = null, errors = null;
+		Call call = null;
+		ScheduledFuture<?> heartbeat = null;
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			call = new Call(socket, output);
+			// callers that stall before their request is read are dropped
+			socket.setSoTimeout((int) (4 * HEARTBEAT));
+			byte[] nonce = new byte[NONCE];
+			random.nextBytes(nonce);
+			output.write(nonce);
+			output.flush();
+			if (MAGIC != input.readInt())
+				return;
+			int length = input.readInt();
+			if (length < 0 || length > NONCE)
+				return;
+			byte[] signature = new byte[length];
+			input.readFully(signature);
+			if (!MessageDigest.isEqual(signature, sign(secret, nonce)))
+				return;
+			boolean grounded = input.readBoolean();
+			List<String> arguments = new ArrayList<>();
+			for (int i = input.readInt(); i > 0; i--) {
+				String argument = input.readUTF();
+				// only options reach clasp, never other files
+				if (!argument.startsWith("--"))
+					return;
+				arguments.add(argument);
+			}
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			socket.setSoTimeout(0);
+
+			// the caller sends nothing else, so the end of its stream means it
+			// went away, while heartbeats let it tell a lost worker apart
+			final Call watched = call;
+			service.submit(() -> {
+				try {
+					while (input.read() >= 0)
+						;
+				} catch (IOException e) {
+				}
+				watched.close();
+			});
+			heartbeat = timer.scheduleAtFixedRate(() -> {
+				try {
+					watched.write(null, 0);
+				} catch (IOException e) {
+					watched.close();
+				}
+			}, HEARTBEAT, HEARTBEAT, TimeUnit.MILLISECONDS);
+
+			program = Files.createTempFile("xhail", ".tmp");
+			Files.write(program, bytes);
+			errors = Files.createTempFile("xhail", ".tmp");
+			middle = program;
+			boolean ground = true;
+			if (!grounded) {
+				middle = Files.createTempFile("xhail", ".tmp");
+				Process grounder = call.start(new ProcessBuilder(gringo).redirectInput(program.toFile()).redirectOutput(middle.toFile()).redirectError(errors.toFile()));
+				ground = 0 == grounder.waitFor();
+			}
+			byte[] messages = Files.readAllBytes(errors);
+			if (messages.length > 0)
+				call.write(messages, messages.length);
+			call.write(null, -1);
+
+			// on errors, the caller reports the messages of gringo
+			if (ground) {
+				List<String> command = new ArrayList<>();
+				command.add(clasp);
+				command.add(middle.toString());
+				command.addAll(arguments);
+				if (threads > 1)
+					command.add("--parallel-mode=" + threads);
+				Process process = call.start(new ProcessBuilder(command).redirectError(Redirect.INHERIT));
+				InputStream stream = process.getInputStream();
+				byte[] buffer = new byte[CHUNK];
+				int read;
+				while ((read = stream.read(buffer)) > 0)
+					call.write(buffer, read);
+				process.waitFor();
+			}
+			call.write(null, -1);
+		} catch (IOException | InterruptedException e) {
+			// the caller went away or the call could not run: it retries elsewhere
+		} finally {
+			if (null != heartbeat)
+				heartbeat.cancel(false);
+			if (null != call)
+				call.close();
+			else
+				try {
+					socket.close();
+				} catch (IOException e) {
+				}
+			for (Path path : new Path[] { program, middle, errors })
+				if (null != path)
+					path.toFile().delete();
+		}
+	}
+
+	/**
+	 * Serves calls until the process is killed, each on its own thread.
+	 */
+	public void serve() {
+		try (ServerSocket server = new ServerSocket()) {
+			server.bind(address.isUnresolved() ? new InetSocketAddress(address.getHostString(), address.getPort()) : address);
+			Logger.message(String.format("*** Info  (%s): serving clasp calls on %s:%d", Logger.SIGNATURE, address.getHostString(), server.getLocalPort()));
+			while (true) {
+				final Socket socket = server.accept();
+				service.submit(() -> handle(socket));
+			}
+		} catch (IOException e) {
+			Logger.error(String.format("cannot serve clasp calls on %s:%d", address.getHostString(), address.getPort()));
+		} finally {
+			service.shutdownNow();
+		}
+	}
+
+}
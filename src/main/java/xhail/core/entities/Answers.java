@@ -93,10 +93,10 @@ public class Answers implements Iterable<Answer> {
 
 	}
 
-	private static long abduction = 0L;
-	private static long deduction = 0L;
+	private static volatile long abduction = 0L;
+	private static volatile long deduction = 0L;
 	private static long first = -1L;
-	private static long induction = 0L;
+	private static volatile long induction = 0L;
 	private static long loading = -1L;
 	private static final double NORMALIZER = 1_000_000_000.0;
 
@@ -149,7 +149,9 @@ public class Answers implements Iterable<Answer> {
 			throw new IllegalArgumentException("Illegal 'dialer' argument in Answers.timeAbduction(int, Dialer): " + dialer);
 		long time = System.nanoTime();
 		Map.Entry<Values, Collection<Collection<String>>> result = dialer.execute(iter);
-		abduction += (System.nanoTime() - time);
+		synchronized (Answers.class) {
+			abduction += (System.nanoTime() - time);
+		}
 		return result;
 	}
 
@@ -161,7 +163,9 @@ public class Answers implements Iterable<Answer> {
 		long time = System.nanoTime();
 		Hypothesis result = new Hypothesis.Builder(grounding).parse(output).build();
 		result.getHypotheses();
-		deduction += (System.nanoTime() - time);
+		synchronized (Answers.class) {
+			deduction += (System.nanoTime() - time);
+		}
 		return result;
 	}
 
@@ -173,7 +177,25 @@ public class Answers implements Iterable<Answer> {
 		long time = System.nanoTime();
 		Grounding result = new Grounding.Builder(problem).parse(output).build();
 		result.getGeneralisation();
-		deduction += (System.nanoTime() - time);
+		synchronized (Answers.class) {
+			deduction += (System.nanoTime() - time);
+		}
+		return result;
+	}
+
+	public static Grounding timeDeduction(Problem problem, Collection<String> output, Table table) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Answers.timeDeduction(Problem, Collection<String>, Table): " + problem);
+		if (null == output)
+			throw new IllegalArgumentException("Illegal 'output' argument in Answers.timeDeduction(Problem, Collection<String>, Table): " + output);
+		if (null == table)
+			throw new IllegalArgumentException("Illegal 'table' argument in Answers.timeDeduction(Problem, Collection<String>, Table): " + table);
+		long time = System.nanoTime();
+		Grounding result = new Grounding.Builder(problem).setTable(table).parse(output).build();
+		result.getGeneralisation();
+		synchronized (Answers.class) {
+			deduction += (System.nanoTime() - time);
+		}
 		return result;
 	}
 
@@ -184,7 +206,9 @@ public class Answers implements Iterable<Answer> {
 			throw new IllegalArgumentException("Illegal 'dialer' argument in Answers.timeInduction(Dialer): " + dialer);
 		long time = System.nanoTime();
 		Map.Entry<Values, Collection<Collection<String>>> result = dialer.execute(iter);
-		induction += (System.nanoTime() - time);
+		synchronized (Answers.class) {
+			induction += (System.nanoTime() - time);
+		}
 		return result;
 	}
 
@@ -0,0 +1,660 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import xhail.core.Buildable;
+import xhail.core.Config;
+import xhail.core.Logger;
+import xhail.core.parser.Parser;
+import xhail.core.terms.Atom;
+import xhail.core.terms.Literal;
+
+/**
+ * State of the search loop, saved after every inductive call and every
+ * iteration: the refinements, the abductive models already tried, the best
+ * answers found so far and the models of the current abductive call that
+ * are still to be tried. Groundings and hypotheses are saved as the atoms
+ * they were parsed from, so that resuming repeats no solver call.
+ * <p>
+ * The file is only ever appended to, see {@link Writer}: models,
+ * refinements, signatures and answers are written once, and each save adds
+ * the few lines of the current state and an end line with the checksum of
+ * everything since the previous one. Reading stops at the last complete
+ * save, so a save cut short by a crash is detected and dropped.
+ *
+ * @author stefano
+ *
+ */
+public class Checkpoint {
+
+	public static class Builder implements Buildable<Checkpoint> {
+
+		private Values abduced = null;
+		private Answers answers;
+		private int iter = 0;
+		private List<Collection<String>> pending = new ArrayList<>();
+		private Problem problem;
+		private Set<String> refinements = new LinkedHashSet<>();
+		private Set<Set<Atom>> signatures = new LinkedHashSet<>();
+		private int size = 0;
+		private List<Collection<String>> tried = new ArrayList<>();
+		private Values values = new Values();
+
+		public Builder(Problem problem) {
+			if (null == problem)
+				throw new IllegalArgumentException("Illegal 'problem' argument in Checkpoint.Builder(Problem): " + problem);
+			this.problem = problem;
+			this.answers = new Answers.Builder(problem.getConfig()).build();
+		}
+
+		public Builder addPending(Collection<String> output) {
+			if (null == output)
+				throw new IllegalArgumentException("Illegal 'output' argument in Checkpoint.Builder.addPending(Collection<String>): " + output);
+			pending.add(output);
+			return this;
+		}
+
+		public Builder addRefinements(Collection<String> refinements) {
+			if (null == refinements)
+				throw new IllegalArgumentException("Illegal 'refinements' argument in Checkpoint.Builder.addRefinements(Collection<String>): " + refinements);
+			this.refinements.addAll(refinements);
+			return this;
+		}
+
+		public Builder addSignatures(Collection<Set<Atom>> signatures) {
+			if (null == signatures)
+				throw new IllegalArgumentException("Illegal 'signatures' argument in Checkpoint.Builder.addSignatures(Collection<Set<Atom>>): " + signatures);
+			this.signatures.addAll(signatures);
+			return this;
+		}
+
+		public Builder addTried(Collection<String> output) {
+			if (null == output)
+				throw new IllegalArgumentException("Illegal 'output' argument in Checkpoint.Builder.addTried(Collection<String>): " + output);
+			tried.add(output);
+			return this;
+		}
+
+		@Override
+		public Checkpoint build() {
+			return new Checkpoint(this);
+		}
+
+		public Builder setAnswers(Answers answers) {
+			if (null == answers)
+				throw new IllegalArgumentException("Illegal 'answers' argument in Checkpoint.Builder.setAnswers(Answers): " + answers);
+			this.answers = answers;
+			return this;
+		}
+
+		public Builder setIter(int iter) {
+			if (iter < 0)
+				throw new IllegalArgumentException("Illegal 'iter' argument in Checkpoint.Builder.setIter(int): " + iter);
+			this.iter = iter;
+			return this;
+		}
+
+		/**
+		 * Marks the current abductive call as interrupted, with the values it
+		 * found and the number of refinements it was started with.
+		 */
+		public Builder setPending(Values abduced, int size) {
+			if (null == abduced)
+				throw new IllegalArgumentException("Illegal 'abduced' argument in Checkpoint.Builder.setPending(Values, int): " + abduced);
+			if (size < 0)
+				throw new IllegalArgumentException("Illegal 'size' argument in Checkpoint.Builder.setPending(Values, int): " + size);
+			this.abduced = abduced;
+			this.size = size;
+			return this;
+		}
+
+		public Builder setValues(Values values) {
+			if (null == values)
+				throw new IllegalArgumentException("Illegal 'values' argument in Checkpoint.Builder.setValues(Values): " + values);
+			this.values = values;
+			return this;
+		}
+
+	}
+
+	/**
+	 * Appends the checkpoints of a search to a file, writing each model,
+	 * refinement, signature and answer only once. A save that fails stops
+	 * any further save, so that the file always ends with a complete one.
+	 */
+	public static class Writer implements Closeable {
+
+		private final Map<Answer, Integer> answers = new HashMap<>();
+
+		private FileChannel channel;
+
+		private final CRC32 crc = new CRC32();
+
+		private final Map<Collection<String>, Integer> models = new IdentityHashMap<>();
+
+		private final Path path;
+
+		private final Problem problem;
+
+		private final Set<String> refinements = new HashSet<>();
+
+		private final Set<Set<Atom>> signatures = new HashSet<>();
+
+		private int tried = 0;
+
+		/**
+		 * Opens the checkpoint file of a problem, keeping the given checkpoint
+		 * read from it, if any, and dropping whatever follows it. A file that
+		 * could not be resumed is moved aside rather than overwritten.
+		 */
+		public Writer(Problem problem, Path path, Checkpoint resumed) {
+			if (null == problem)
+				throw new IllegalArgumentException("Illegal 'problem' argument in Checkpoint.Writer(Problem, Path, Checkpoint): " + problem);
+			if (null == path)
+				throw new IllegalArgumentException("Illegal 'path' argument in Checkpoint.Writer(Problem, Path, Checkpoint): " + path);
+			this.path = path;
+			this.problem = problem;
+			try {
+				if (null == resumed && Files.exists(path) && Files.size(path) > 0L) {
+					Path aside = path.resolveSibling(path.getFileName() + ".old");
+					for (int i = 1; Files.exists(aside); i++)
+						aside = path.resolveSibling(path.getFileName() + ".old" + i);
+					Files.move(path, aside);
+					Logger.warning(problem.getConfig().isMute(), String.format("checkpoint '%s' was moved to '%s'", path, aside));
+				}
+				channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				if (null == resumed) {
+					channel.truncate(0L);
+					write(HEADER + key(problem));
+				} else {
+					channel.truncate(resumed.length);
+					channel.position(resumed.length);
+					answers.putAll(resumed.ids);
+					models.putAll(resumed.models);
+					refinements.addAll(resumed.refinements);
+					signatures.addAll(resumed.signatures);
+					tried = resumed.tried.size();
+				}
+				crc.reset();
+			} catch (IOException e) {
+				fail();
+			}
+		}
+
+		@Override
+		public void close() {
+			if (null != channel)
+				try {
+					channel.close();
+				} catch (IOException e) {
+				}
+			channel = null;
+		}
+
+		private void fail() {
+			Logger.warning(problem.getConfig().isMute(), String.format("cannot save checkpoint '%s', the search goes on without it", path));
+			close();
+		}
+
+		/**
+		 * Returns the identifier of an answer, appending it if it is new.
+		 */
+		private int id(Answer answer) throws IOException {
+			Integer result = answers.get(answer);
+			if (null == result) {
+				answers.put(answer, result = answers.size());
+				Grounding grounding = answer.getGrounding();
+				write(GROUNDING + " " + result + "\t" + grounding.getDepth() + "\t" + String.join("\t", atoms(grounding)));
+				if (null != answer.getHypothesis())
+					write(HYPOTHESIS + " " + result + "\t" + String.join("\t", atoms(answer.getHypothesis())));
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the identifier of a model, appending it if it is new.
+		 */
+		private int id(Collection<String> output) throws IOException {
+			Integer result = models.get(output);
+			if (null == result) {
+				models.put(output, result = models.size());
+				write(MODEL + " " + result + "\t" + String.join("\t", output));
+			}
+			return result;
+		}
+
+		/**
+		 * Appends the given checkpoint and forces it to the disk.
+		 *
+		 * @return whether the checkpoint was saved
+		 */
+		public boolean save(Checkpoint checkpoint) {
+			if (null == checkpoint)
+				throw new IllegalArgumentException("Illegal 'checkpoint' argument in Checkpoint.Writer.save(Checkpoint): " + checkpoint);
+			if (null == channel)
+				return false;
+			try {
+				for (String refinement : checkpoint.refinements)
+					if (refinements.add(refinement))
+						write(REFINEMENT + " " + refinement);
+				for (Set<Atom> signature : checkpoint.signatures)
+					if (signatures.add(signature))
+						write(SIGNATURE + " " + String.join("\t", strings(signature)));
+				for (; tried < checkpoint.tried.size(); tried++)
+					write(TRIED + " " + id(checkpoint.tried.get(tried)));
+				List<String> ids = new ArrayList<>();
+				for (Answer answer : checkpoint.answers)
+					ids.add(Integer.toString(id(answer)));
+				List<String> pending = new ArrayList<>();
+				for (Collection<String> output : checkpoint.pending)
+					pending.add(Integer.toString(id(output)));
+
+				write(ITER + " " + checkpoint.iter);
+				write(VALUES + " " + checkpoint.values);
+				if (null != checkpoint.abduced)
+					write(PENDING + " " + checkpoint.size + "\t" + checkpoint.abduced + (pending.isEmpty() ? "" : "\t" + String.join("\t", pending)));
+				if (!ids.isEmpty())
+					write(ANSWERS + " " + checkpoint.answers.getValues() + "\t" + String.join("\t", ids));
+				String end = END + " " + Long.toHexString(crc.getValue());
+				crc.reset();
+				write(end);
+				crc.reset();
+				channel.force(false);
+				return true;
+			} catch (IOException e) {
+				fail();
+				return false;
+			}
+		}
+
+		private void write(String line) throws IOException {
+			byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+			crc.update(bytes);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+
+	}
+
+	private static final String ANSWERS = "answers";
+
+	private static final String END = "end";
+
+	private static final String GROUNDING = "grounding";
+
+	private static final String HEADER = "% xhail checkpoint ";
+
+	private static final String HYPOTHESIS = "hypothesis";
+
+	private static final String ITER = "iter";
+
+	private static final String MODEL = "model";
+
+	private static final String PENDING = "pending";
+
+	private static final String REFINEMENT = "refinement";
+
+	private static final String SIGNATURE = "signature";
+
+	private static final String TRIED = "tried";
+
+	private static final String VALUES = "values";
+
+	/**
+	 * Returns a grounding and its hypothesis, if any, as an answer.
+	 */
+	private static Answer answer(Grounding grounding, Hypothesis hypothesis) {
+		Answer.Builder builder = new Answer.Builder(grounding);
+		if (null != hypothesis)
+			builder.setHypothesis(hypothesis);
+		return builder.build();
+	}
+
+	/**
+	 * Returns the atoms a grounding can be parsed back from.
+	 */
+	private static List<String> atoms(Grounding grounding) {
+		List<String> result = new ArrayList<>();
+		for (Atom atom : grounding.getFacts())
+			result.add(atom.toString());
+		for (Atom atom : grounding.getDelta())
+			result.add("abduced_" + atom);
+		return result;
+	}
+
+	/**
+	 * Returns the atoms a hypothesis can be parsed back from: its literals,
+	 * its model and the example atoms that make the same examples covered.
+	 */
+	private static List<String> atoms(Hypothesis hypothesis) {
+		List<String> result = new ArrayList<>();
+		for (Atom atom : hypothesis)
+			result.add(atom.toString());
+		for (Atom atom : hypothesis.getModel())
+			result.add(atom.toString());
+		for (Literal literal : hypothesis.getCovered())
+			if (!literal.isNegated())
+				result.add(literal.getAtom().toString());
+		for (Literal literal : hypothesis.getUncovered())
+			if (literal.isNegated())
+				result.add(literal.getAtom().toString());
+		return result;
+	}
+
+	/**
+	 * Identifies the statements of a problem and the options that change
+	 * the answers it has, so that a checkpoint is never resumed on a
+	 * different search. Options that only change how fast the search runs,
+	 * or how long, are left out: a search can be resumed with a longer
+	 * <code>--kill</code> or more <code>--iter</code>.
+	 */
+	static String key(Problem problem) {
+		Config config = problem.getConfig();
+		StringBuilder builder = new StringBuilder();
+		builder.append(Arrays.toString(problem.getBackground()));
+		builder.append(Arrays.toString(problem.getDomains()));
+		builder.append(Arrays.toString(problem.getExamples()));
+		builder.append(Arrays.toString(problem.getModeHs()));
+		builder.append(Arrays.toString(problem.getModeBs()));
+		builder.append(String.format("[all=%b, depth=%d, full=%b, heuristic=%b, lean=%b, reduce=%b, sample=%d, shards=%d, slice=%b, terminate=%b]", config.isAll(),
+				config.getDepth(), config.isFull(), config.isHeuristic(), config.isLean(), config.isReduce(), config.getSample(), config.getShards(),
+				config.isSlice(), config.isTerminate()));
+		try {
+			StringBuilder result = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(builder.toString().getBytes(StandardCharsets.UTF_8)))
+				result.append(String.format("%02x", b));
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads the last complete checkpoint of a problem, rebuilding its
+	 * groundings and hypotheses. Returns <code>null</code> if there is no
+	 * checkpoint, or if it cannot be read or belongs to a different problem.
+	 */
+	public static Checkpoint load(Problem problem, Path path) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Checkpoint.load(Problem, Path): " + problem);
+		if (null == path)
+			throw new IllegalArgumentException("Illegal 'path' argument in Checkpoint.load(Problem, Path): " + path);
+		if (!Files.exists(path))
+			return null;
+		boolean mute = problem.getConfig().isMute();
+		Checkpoint result = new Builder(problem).build();
+		Map<Integer, List<String>> groundings = new HashMap<>();
+		Map<Integer, List<String>> hypotheses = new HashMap<>();
+		Map<Integer, Collection<String>> models = new HashMap<>();
+		List<String> answers = null;
+		List<String> segment = new ArrayList<>();
+		CRC32 crc = new CRC32();
+		long position = 0L;
+		boolean complete = false;
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+			byte[] bytes = line(stream);
+			if (null == bytes || !new String(bytes, StandardCharsets.UTF_8).trim().equals(HEADER + key(problem))) {
+				Logger.warning(mute, String.format("checkpoint '%s' belongs to a different search and will be ignored", path));
+				return null;
+			}
+			position = bytes.length;
+			long length = position;
+			while (null != (bytes = line(stream))) {
+				position += bytes.length;
+				String line = new String(bytes, StandardCharsets.UTF_8);
+				if (!line.endsWith("\n"))
+					break;
+				line = line.substring(0, line.length() - 1);
+				if (!line.startsWith(END + " ")) {
+					crc.update(bytes);
+					segment.add(line);
+					continue;
+				}
+				if (Long.parseLong(line.substring(1 + END.length()), 16) != crc.getValue())
+					break;
+				// the save is complete: its lines can be applied
+				for (String entry : segment) {
+					int space = entry.indexOf(' ');
+					String label = space < 0 ? entry : entry.substring(0, space);
+					String content = space < 0 ? "" : entry.substring(1 + space);
+					List<String> tokens = tokens(content);
+					switch (label) {
+					case ANSWERS:
+						answers = tokens;
+						break;
+					case GROUNDING:
+						groundings.put(Integer.parseUnsignedInt(tokens.get(0)), tokens.subList(1, tokens.size()));
+						break;
+					case HYPOTHESIS:
+						hypotheses.put(Integer.parseUnsignedInt(tokens.get(0)), tokens.subList(1, tokens.size()));
+						break;
+					case ITER:
+						result.iter = Integer.parseUnsignedInt(content);
+						result.abduced = null;
+						result.pending.clear();
+						answers = null;
+						break;
+					case MODEL:
+						Collection<String> model = new ArrayList<>(tokens.subList(1, tokens.size()));
+						models.put(Integer.parseUnsignedInt(tokens.get(0)), model);
+						result.models.put(model, Integer.parseUnsignedInt(tokens.get(0)));
+						break;
+					case PENDING:
+						result.size = Integer.parseUnsignedInt(tokens.get(0));
+						result.abduced = new Values(tokens.get(1));
+						for (String id : tokens.subList(2, tokens.size()))
+							result.pending.add(model(models, id));
+						break;
+					case REFINEMENT:
+						result.refinements.add(content);
+						break;
+					case SIGNATURE:
+						Set<Atom> signature = new HashSet<>();
+						for (String token : tokens)
+							signature.add(Parser.parseAtom(token));
+						result.signatures.add(signature);
+						break;
+					case TRIED:
+						result.tried.add(model(models, content));
+						break;
+					case VALUES:
+						result.values = new Values(content);
+						break;
+					default:
+						throw new IOException("unknown entry '" + label + "'");
+					}
+				}
+				segment.clear();
+				crc.reset();
+				length = position;
+				complete = true;
+			}
+			result.length = length;
+			if (!complete) {
+				Logger.warning(mute, String.format("checkpoint '%s' holds no complete save, starting from scratch", path));
+				return null;
+			}
+			if (null != bytes || !segment.isEmpty())
+				Logger.warning(mute, String.format("checkpoint '%s' ends with an incomplete save, resuming from the previous one", path));
+
+			Answers.Builder builder = new Answers.Builder(problem.getConfig());
+			if (null != answers)
+				for (String id : answers.subList(1, answers.size())) {
+					int key = Integer.parseUnsignedInt(id);
+					List<String> atoms = new ArrayList<>(groundings.get(key));
+					int depth = Integer.parseUnsignedInt(atoms.remove(0));
+					Grounding grounding = Answers.timeDeduction(problem, atoms).deepen(depth);
+					Hypothesis hypothesis = hypotheses.containsKey(key) ? Answers.timeDeduction(grounding, hypotheses.get(key)) : null;
+					Answer answer = answer(grounding, hypothesis);
+					builder.put(new Values(answers.get(0)), answer);
+					result.ids.put(answer, key);
+				}
+			result.answers = builder.build();
+		} catch (IOException | RuntimeException e) {
+			Logger.warning(mute, String.format("cannot read checkpoint '%s' (%s), starting from scratch", path, e.getMessage()));
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the next line of a stream with its line feed, if any, or
+	 * <code>null</code> at its end.
+	 */
+	private static byte[] line(InputStream stream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		int c;
+		while ((c = stream.read()) >= 0) {
+			result.write(c);
+			if ('\n' == c)
+				break;
+		}
+		return 0 == result.size() ? null : result.toByteArray();
+	}
+
+	private static Collection<String> model(Map<Integer, Collection<String>> models, String id) throws IOException {
+		Collection<String> result = models.get(Integer.parseUnsignedInt(id));
+		if (null == result)
+			throw new IOException("unknown model " + id);
+		return result;
+	}
+
+	private static List<String> strings(Collection<Atom> atoms) {
+		List<String> result = new ArrayList<>();
+		for (Atom atom : atoms)
+			result.add(atom.toString());
+		return result;
+	}
+
+	private static List<String> tokens(String content) {
+		List<String> result = new ArrayList<>();
+		for (String token : content.split("\t"))
+			if (!token.isEmpty())
+				result.add(token);
+		return result;
+	}
+
+	private Values abduced;
+
+	private Answers answers;
+
+	/**
+	 * Identifiers of the answers read from the file.
+	 */
+	private final Map<Answer, Integer> ids = new HashMap<>();
+
+	private int iter;
+
+	/**
+	 * Length of the file up to the end of this checkpoint.
+	 */
+	private long length = 0L;
+
+	/**
+	 * Identifiers of the models read from the file.
+	 */
+	private final Map<Collection<String>, Integer> models = new IdentityHashMap<>();
+
+	private final List<Collection<String>> pending;
+
+	private final Set<String> refinements;
+
+	private final Set<Set<Atom>> signatures;
+
+	private int size;
+
+	private final List<Collection<String>> tried;
+
+	private Values values;
+
+	private Checkpoint(Builder builder) {
+		if (null == builder)
+			throw new IllegalArgumentException("Illegal 'builder' argument in Checkpoint(Checkpoint.Builder): " + builder);
+		this.abduced = builder.abduced;
+		this.answers = builder.answers;
+		this.iter = builder.iter;
+		this.pending = builder.pending;
+		this.refinements = builder.refinements;
+		this.signatures = builder.signatures;
+		this.size = builder.size;
+		this.tried = builder.tried;
+		this.values = builder.values;
+	}
+
+	/**
+	 * Returns the values of the interrupted abductive call, or
+	 * <code>null</code> if the checkpoint is between two iterations.
+	 */
+	public final Values getAbduced() {
+		return abduced;
+	}
+
+	public final Answers getAnswers() {
+		return answers;
+	}
+
+	public final int getIter() {
+		return iter;
+	}
+
+	/**
+	 * Returns the models of the interrupted abductive call still to be
+	 * tried.
+	 */
+	public final List<Collection<String>> getPending() {
+		return Collections.unmodifiableList(pending);
+	}
+
+	public final Set<String> getRefinements() {
+		return Collections.unmodifiableSet(refinements);
+	}
+
+	public final Set<Set<Atom>> getSignatures() {
+		return Collections.unmodifiableSet(signatures);
+	}
+
+	/**
+	 * Returns the number of refinements the interrupted abductive call was
+	 * started with.
+	 */
+	public final int getSize() {
+		return size;
+	}
+
+	public final List<Collection<String>> getTried() {
+		return Collections.unmodifiableList(tried);
+	}
+
+	public final Values getValues() {
+		return values;
+	}
+
+}
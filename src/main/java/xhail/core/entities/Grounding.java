@@ -4,11 +4,14 @@
 package xhail.core.entities;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -18,8 +21,10 @@ import org.apache.commons.lang3.StringUtils;
 import xhail.core.Buildable;
 import xhail.core.Config;
 import xhail.core.Dialler;
+import xhail.core.Emitter;
 import xhail.core.Logger;
 import xhail.core.Utils;
+import xhail.core.parser.Model;
 import xhail.core.parser.Parser;
 import xhail.core.statements.Display;
 import xhail.core.statements.Example;
@@ -44,8 +49,12 @@ public class Grounding implements Solvable {
 		private Set<Literal> covered = new HashSet<>();
 		private Set<Atom> delta = new HashSet<>();
 		private Set<Atom> facts = new HashSet<>();
+		private Set<Clause> generalisation = new LinkedHashSet<>();
+		private Set<Clause> kernel = new LinkedHashSet<>();
+		private boolean merged = false;
 		private Set<Atom> model = new HashSet<>();
 		private Problem problem;
+		private Table table = null;
 		private Set<Literal> uncovered = new HashSet<>();
 
 		public Builder(Problem problem) {
@@ -75,6 +84,26 @@ public class Grounding implements Solvable {
 			return this;
 		}
 
+		/**
+		 * Merges the given grounding into this one: its kernel and
+		 * generalisation are taken as they are instead of being recomputed.
+		 *
+		 * @param grounding
+		 *            the grounding to merge
+		 * @return this builder
+		 */
+		public Builder addGrounding(Grounding grounding) {
+			if (null == grounding)
+				throw new IllegalArgumentException("Illegal 'grounding' argument in Grounding.Builder.addGrounding(Grounding): " + grounding);
+			Collections.addAll(delta, grounding.getDelta());
+			facts.addAll(grounding.getFacts());
+			Collections.addAll(generalisation, grounding.getGeneralisation());
+			Collections.addAll(kernel, grounding.getKernel());
+			Collections.addAll(model, grounding.getModel());
+			merged = true;
+			return this;
+		}
+
 		@Override
 		public Grounding build() {
 			covered.clear();
@@ -93,6 +122,9 @@ public class Grounding implements Solvable {
 			this.covered.clear();
 			this.delta.clear();
 			this.facts.clear();
+			this.generalisation.clear();
+			this.kernel.clear();
+			this.merged = false;
 			this.model.clear();
 			this.uncovered.clear();
 			return this;
@@ -101,8 +133,11 @@ public class Grounding implements Solvable {
 		public Builder parse(Collection<String> answer) {
 			if (null == answer)
 				throw new IllegalArgumentException("Illegal 'answer' argument in Grounding.Builder.parse(Collection<String>): " + answer);
-			for (String atom : answer)
-				addAtom(Parser.parseToken(atom));
+			if (answer instanceof Model)
+				addAtoms(((Model) answer).getAtoms());
+			else
+				for (String atom : answer)
+					addAtom(Parser.parseToken(atom));
 			return this;
 		}
 
@@ -127,6 +162,16 @@ public class Grounding implements Solvable {
 			return this;
 		}
 
+
+		/**
+		 * Shares the table of the facts common to all the models of the same
+		 * abductive call.
+		 */
+		public Builder setTable(Table table) {
+			this.table = table;
+			return this;
+		}
+
 	}
 
 	private final Config config;
@@ -137,6 +182,8 @@ public class Grounding implements Solvable {
 
 	private final Atom[] delta;
 
+	private final int depth;
+
 	private final Set<Atom> facts;
 
 	private Clause[] generalisation;
@@ -149,6 +196,8 @@ public class Grounding implements Solvable {
 
 	private final Map<SchemeTerm, Set<Atom>> table;
 
+	private boolean truncated = false;
+
 	private final Literal[] uncovered;
 
 	private Grounding(Builder builder) {
@@ -158,78 +207,236 @@ public class Grounding implements Solvable {
 		this.count = builder.delta.size();
 		this.covered = builder.covered.toArray(new Literal[builder.covered.size()]);
 		this.delta = builder.delta.toArray(new Atom[builder.delta.size()]);
+		// iterative deepening starts from the shallowest kernel
+		this.depth = config.getDepth() > 0 ? 1 : 0;
 		this.facts = builder.facts;
+		if (builder.merged) {
+			this.generalisation = builder.generalisation.toArray(new Clause[builder.generalisation.size()]);
+			this.kernel = builder.kernel.toArray(new Clause[builder.kernel.size()]);
+		}
 		this.model = builder.model.toArray(new Atom[builder.model.size()]);
 		this.problem = builder.problem;
-		this.table = SchemeTerm.lookup(builder.problem.getModeHs(), builder.problem.getModeBs(), builder.facts);
+		this.table = null == builder.table ? SchemeTerm.lookup(builder.problem.getModeHs(), builder.problem.getModeBs(), builder.facts)
+				: builder.table.lookup(builder.facts);
 		this.uncovered = builder.uncovered.toArray(new Literal[builder.uncovered.size()]);
 	}
 
+	/**
+	 * Copies a grounding whose kernel is rebuilt up to the given depth.
+	 */
+	private Grounding(Grounding grounding, int depth) {
+		this.config = grounding.config;
+		this.count = grounding.count;
+		this.covered = grounding.covered;
+		this.delta = grounding.delta;
+		this.depth = depth;
+		this.facts = grounding.facts;
+		this.model = grounding.model;
+		this.problem = grounding.problem;
+		this.table = grounding.table;
+		this.uncovered = grounding.uncovered;
+	}
+
 	public final String asBadSolution() {
 		return String.format("bad_solution:-%snumber_abduced(%d).", count > 0 ? StringUtils.join(delta, ",") + "," : "", count);
 	}
 
 	public String[] asClauses() {
-		Set<String> result = new LinkedHashSet<>();
+		Emitter emitter = new Emitter();
+		asClauses(emitter);
+		return emitter.lines();
+	}
+
+	public void asClauses(Emitter emitter) {
+		if (null == emitter)
+			throw new IllegalArgumentException("Illegal 'emitter' argument in Grounding.asClauses(Emitter): " + emitter);
+		if (config.isLean())
+			asLeanClauses(emitter);
+		else
+			asFullClauses(emitter);
+		if (config.isHeuristic())
+			asHeuristics(emitter);
+	}
+
+	/**
+	 * Domain heuristic making <code>clasp</code> try first, and as true, the
+	 * literals of the generalisation used by the hypotheses found so far.
+	 */
+	private void asHeuristics(Emitter emitter) {
+		Clause[] clauses = getGeneralisation();
+		Collection<Clause> hints = problem.getHints();
+		for (int clauseId = 0; clauseId < clauses.length; clauseId++) {
+			Literal[] literals = clauses[clauseId].getBody();
+			Set<Integer> used = new TreeSet<>();
+			for (Clause hint : hints)
+				if (hint.getHead().equals(clauses[clauseId].getHead())) {
+					List<Literal> body = Arrays.asList(hint.getBody());
+					used.add(0);
+					for (int literalId = 1; literalId <= literals.length; literalId++)
+						if (body.contains(literals[literalId - 1]))
+							used.add(literalId);
+				}
+			for (int literalId : used)
+				emitter.append("_heuristic(use_clause_literal(").append(clauseId).append(',').append(literalId).println("),true,1).");
+		}
+	}
+
+	/**
+	 * Lean induction encoding: a single choice rule over <code>literal/2</code>
+	 * ranges, one weighted <code>#minimize</code> for the whole program and
+	 * type guards only where no <code>try_clause_literal</code> atom already
+	 * binds the variable.
+	 */
+	private void asLeanClauses(Emitter emitter) {
 		Clause[] clauses = getGeneralisation();
 		if (clauses.length > 0) {
-			result.add("{ use_clause_literal(V1,0) }:-clause(V1).");
+			emitter.println("{ use_clause_literal(V1,V2) }:-literal(V1,V2).");
+			for (int clauseId = 0; clauseId < clauses.length; clauseId++) {
+				emitter.append("% ").append(clauses[clauseId]).println();
+				Literal[] literals = clauses[clauseId].getBody();
+				emitter.append("literal(").append(clauseId).append(",0");
+				if (literals.length > 0)
+					emitter.append("..").append(literals.length);
+				emitter.println(").");
+
+				for (int level = 0; level < clauses[clauseId].getLevels(); level++)
+					emitter.append(":-not clause_level(").append(clauseId).append(',').append(level) //
+							.append("),clause_level(").append(clauseId).append(',').append(1 + level).println(").");
+
+				if (literals.length > 0) {
+					emitter.append("clause_level(").append(clauseId).append(",0):-use_clause_literal(").append(clauseId).println(",0).");
+					for (int literalId = 1; literalId <= literals.length; literalId++)
+						emitter.append("clause_level(").append(clauseId).append(',').append(literals[literalId - 1].getLevel()) //
+								.append("):-use_clause_literal(").append(clauseId).append(',').append(literalId).println(").");
+				}
+
+				Atom head = clauses[clauseId].getHead();
+				Set<Variable> types = new LinkedHashSet<>();
+				Collections.addAll(types, head.getVariables());
+				emitter.append(head).append(":-use_clause_literal(").append(clauseId).append(",0)");
+				for (int literalId = 1; literalId <= literals.length; literalId++) {
+					emitter.append(',');
+					tryClauseLiteral(emitter, clauseId, literalId, literals[literalId - 1]);
+					types.removeAll(Arrays.asList(literals[literalId - 1].getVariables()));
+				}
+				for (Variable variable : types)
+					type(emitter.append(','), variable);
+				emitter.println(".");
+
+				for (int literalId = 1; literalId <= literals.length; literalId++) {
+					Literal literal = literals[literalId - 1];
+					tryClauseLiteral(emitter, clauseId, literalId, literal);
+					emitter.append(":-use_clause_literal(").append(clauseId).append(',').append(literalId).append("),").append(literal);
+					for (Variable variable : literal.getVariables())
+						type(emitter.append(','), variable);
+					emitter.println(".");
+					tryClauseLiteral(emitter, clauseId, literalId, literal);
+					emitter.append(":-not use_clause_literal(").append(clauseId).append(',').append(literalId).append(')');
+					for (Variable variable : literal.getVariables())
+						type(emitter.append(','), variable);
+					emitter.println(".");
+				}
+			}
+
+			emitter.append("#minimize[ ");
+			for (int clauseId = 0; clauseId < clauses.length; clauseId++) {
+				Atom head = clauses[clauseId].getHead();
+				if (clauseId > 0)
+					emitter.append(", ");
+				emitter.append("use_clause_literal(").append(clauseId).append(",0) =").append(head.getWeight()).append(" @").append(head.getPriority());
+				Literal[] literals = clauses[clauseId].getBody();
+				for (int literalId = 1; literalId <= literals.length; literalId++)
+					emitter.append(", use_clause_literal(").append(clauseId).append(',').append(literalId) //
+							.append(") =").append(literals[literalId - 1].getWeight()).append(" @").append(literals[literalId - 1].getPriority());
+			}
+			emitter.println(" ].");
+		}
+	}
+
+	private void asFullClauses(Emitter emitter) {
+		Clause[] clauses = getGeneralisation();
+		if (clauses.length > 0) {
+			emitter.println("{ use_clause_literal(V1,0) }:-clause(V1).");
 
 			boolean hasLiterals = false;
 			for (int clauseId = 0; !hasLiterals && clauseId < clauses.length; clauseId++)
 				hasLiterals = clauses[clauseId].getBody().length > 0;
 
 			if (hasLiterals)
-				result.add("{ use_clause_literal(V1,V2) }:-clause(V1),literal(V1,V2).");
+				emitter.println("{ use_clause_literal(V1,V2) }:-clause(V1),literal(V1,V2).");
 
 			for (int clauseId = 0; clauseId < clauses.length; clauseId++) {
-				result.add(String.format("%% %s", clauses[clauseId]));
+				emitter.append("% ").append(clauses[clauseId]).println();
 				Literal[] literals = clauses[clauseId].getBody();
-				result.add(String.format("clause(%d).", clauseId));
+				emitter.append("clause(").append(clauseId).println(").");
 				for (int literalId = 1; literalId <= literals.length; literalId++)
-					result.add(String.format("literal(%d,%d).", clauseId, literalId));
+					emitter.append("literal(").append(clauseId).append(',').append(literalId).println(").");
 
 				for (int level = 0; level < clauses[clauseId].getLevels(); level++)
-					result.add(String.format(":-not clause_level(%d,%d),clause_level(%d,%d).", clauseId, level, clauseId, 1 + level));
+					emitter.append(":-not clause_level(").append(clauseId).append(',').append(level) //
+							.append("),clause_level(").append(clauseId).append(',').append(1 + level).println(").");
 
-				result.add(String.format("clause_level(%d,0):-use_clause_literal(%d,0).", clauseId, clauseId));
+				emitter.append("clause_level(").append(clauseId).append(",0):-use_clause_literal(").append(clauseId).println(",0).");
 				for (int literalId = 1; literalId <= literals.length; literalId++)
-					result.add(String.format("clause_level(%d,%d):-use_clause_literal(%d,%d).", clauseId, literals[literalId - 1].getLevel(), clauseId,
-							literalId));
+					emitter.append("clause_level(").append(clauseId).append(',').append(literals[literalId - 1].getLevel()) //
+							.append("):-use_clause_literal(").append(clauseId).append(',').append(literalId).println(").");
 
 				Atom head = clauses[clauseId].getHead();
-				result.add(String.format("#minimize[ use_clause_literal(%d,0) =%d @%d ].", clauseId, head.getWeight(), head.getPriority()));
+				emitter.append("#minimize[ use_clause_literal(").append(clauseId).append(",0) =").append(head.getWeight()) //
+						.append(" @").append(head.getPriority()).println(" ].");
 
 				for (int literalId = 1; literalId <= literals.length; literalId++)
-					result.add(String.format("#minimize[ use_clause_literal(%d,%d) =%d @%d ].", clauseId, literalId, //
-							literals[literalId - 1].getWeight(), literals[literalId - 1].getPriority()));
+					emitter.append("#minimize[ use_clause_literal(").append(clauseId).append(',').append(literalId) //
+							.append(") =").append(literals[literalId - 1].getWeight()).append(" @").append(literals[literalId - 1].getPriority()).println(" ].");
 
-				Set<String> set = new LinkedHashSet<>();
-				for (String type : head.getTypes())
-					set.add(type);
-				String[] array = new String[literals.length];
+				Set<Variable> variables = new LinkedHashSet<>();
+				Collections.addAll(variables, head.getVariables());
+				emitter.append(head).append(":-use_clause_literal(").append(clauseId).append(",0)");
 				for (int literalId = 1; literalId <= literals.length; literalId++) {
-					String variables = literals[literalId - 1].hasVariables() ? "," + StringUtils.join(literals[literalId - 1].getVariables(), ",") : "";
-					array[literalId - 1] = String.format("try_clause_literal(%d,%d%s)", clauseId, literalId, variables);
-					for (String type : literals[literalId - 1].getTypes())
-						set.add(type);
+					emitter.append(',');
+					tryClauseLiteral(emitter, clauseId, literalId, literals[literalId - 1]);
+					Collections.addAll(variables, literals[literalId - 1].getVariables());
 				}
-				String typesAll = !set.isEmpty() ? "," + StringUtils.join(set, ",") : "";
-				String literalsAll = array.length > 0 ? "," + StringUtils.join(array, ",") : "";
-				result.add(String.format("%s:-use_clause_literal(%d,0)%s%s.", head, clauseId, literalsAll, typesAll));
+				for (Variable variable : variables)
+					type(emitter.append(','), variable);
+				emitter.println(".");
 
 				for (int literalId = 1; literalId <= literals.length; literalId++) {
-					String variables = literals[literalId - 1].hasVariables() ? "," + StringUtils.join(literals[literalId - 1].getVariables(), ",") : "";
-					String types = literals[literalId - 1].hasTypes() ? "," + StringUtils.join(literals[literalId - 1].getTypes(), ",") : "";
-					result.add(String.format("try_clause_literal(%d,%d%s):-use_clause_literal(%d,%d),%s%s.", //
-							clauseId, literalId, variables, clauseId, literalId, literals[literalId - 1], types));
-					result.add(String.format("try_clause_literal(%d,%d%s):-not use_clause_literal(%d,%d)%s.", //
-							clauseId, literalId, variables, clauseId, literalId, types));
+					Literal literal = literals[literalId - 1];
+					tryClauseLiteral(emitter, clauseId, literalId, literal);
+					emitter.append(":-use_clause_literal(").append(clauseId).append(',').append(literalId).append("),").append(literal);
+					for (Variable variable : literal.getVariables())
+						type(emitter.append(','), variable);
+					emitter.println(".");
+					tryClauseLiteral(emitter, clauseId, literalId, literal);
+					emitter.append(":-not use_clause_literal(").append(clauseId).append(',').append(literalId).append(')');
+					for (Variable variable : literal.getVariables())
+						type(emitter.append(','), variable);
+					emitter.println(".");
 				}
 
 			}
 		}
-		return result.toArray(new String[result.size()]);
+	}
+
+	private static Emitter tryClauseLiteral(Emitter emitter, int clauseId, int literalId, Literal literal) {
+		emitter.append("try_clause_literal(").append(clauseId).append(',').append(literalId);
+		for (Variable variable : literal.getVariables())
+			emitter.append(',').append(variable.getIdentifier());
+		return emitter.append(')');
+	}
+
+	private static Emitter type(Emitter emitter, Variable variable) {
+		return emitter.append(variable.getType().getIdentifier()).append('(').append(variable.getIdentifier()).append(')');
+	}
+
+	/**
+	 * Returns this grounding with its kernel built up to the given depth.
+	 */
+	public final Grounding deepen(int depth) {
+		if (depth < 0)
+			throw new IllegalArgumentException("Illegal 'depth' argument in Grounding.deepen(int): " + depth);
+		return depth == this.depth ? this : new Grounding(this, depth);
 	}
 
 	@Override
@@ -245,6 +452,8 @@ public class Grounding implements Solvable {
 			return false;
 		if (!Arrays.equals(delta, other.delta))
 			return false;
+		if (depth != other.depth)
+			return false;
 		if (facts == null) {
 			if (other.facts != null)
 				return false;
@@ -291,6 +500,10 @@ public class Grounding implements Solvable {
 		return delta;
 	}
 
+	public final int getDepth() {
+		return depth;
+	}
+
 	public final Display[] getDisplays() {
 		return problem.getDisplays();
 	}
@@ -319,6 +532,8 @@ public class Grounding implements Solvable {
 			result.add(String.format("#show %s/%d.", display.getIdentifier(), display.getArity()));
 		for (Example example : problem.getExamples())
 			result.add(String.format("#show %s/%d.", example.getAtom().getIdentifier(), example.getAtom().getArity()));
+		if (config.isHeuristic())
+			result.add("#show _heuristic/3.");
 		return result;
 	}
 
@@ -329,14 +544,14 @@ public class Grounding implements Solvable {
 				Map<Term, Variable> map = new HashMap<>();
 				Clause.Builder builder = new Clause.Builder();
 				Atom atom = clause.getHead();
-				for (ModeH mode : problem.getModeHs()) {
+				for (ModeH mode : problem.getModeHs(atom)) {
 					Scheme scheme = mode.getScheme();
 					if (SchemeTerm.subsumes(scheme, atom, facts))
 						builder.setHead((Atom) scheme.generalises(atom, map));
 				}
 				for (Literal literal : clause.getBody()) {
 					atom = literal.getAtom();
-					for (ModeB mode : problem.getModeBs()) {
+					for (ModeB mode : problem.getModeBs(atom)) {
 						Scheme scheme = mode.getScheme();
 						if (SchemeTerm.subsumes(scheme, atom, facts))
 							builder.addLiteral(new Literal.Builder((Atom) scheme.generalises(atom, map)).setNegated(literal.isNegated())
@@ -345,6 +560,8 @@ public class Grounding implements Solvable {
 				}
 				set.add(builder.build());
 			}
+			if (config.isReduce())
+				set = reduce(set);
 			generalisation = set.toArray(new Clause[set.size()]);
 		}
 		return generalisation;
@@ -353,8 +570,12 @@ public class Grounding implements Solvable {
 	public final Clause[] getKernel() {
 		if (null == kernel) {
 			Set<Clause> set = new LinkedHashSet<>();
+			Map<Scheme, Map<Term, List<Atom>>> indexes = new HashMap<>();
+			for (ModeB mode : problem.getModeBs())
+				if (!mode.isNegated())
+					indexes.put(mode.getScheme(), mode.getScheme().getMatcher().index(table.get(mode.getScheme())));
 			for (Atom alpha : delta)
-				for (ModeH head : problem.getModeHs()) {
+				for (ModeH head : problem.getModeHs(alpha)) {
 					Scheme scheme = head.getScheme();
 					if (SchemeTerm.subsumes(scheme, alpha, facts)) {
 						Clause.Builder builder = new Clause.Builder().setHead(//
@@ -367,6 +588,10 @@ public class Grounding implements Solvable {
 							Set<Term> used = new HashSet<Term>();
 							Set<Term> next = new HashSet<Term>();
 							while (!usables.isEmpty()) {
+								if (depth > 0 && level == depth) {
+									truncated = true;
+									break;
+								}
 								level += 1;
 								for (ModeB mode : problem.getModeBs()) {
 									scheme = mode.getScheme();
@@ -379,7 +604,7 @@ public class Grounding implements Solvable {
 											next.addAll(found.get(atom));
 										}
 									} else {
-										Map.Entry<Collection<Atom>, Collection<Term>> found = SchemeTerm.matchAndOutput(scheme, table.get(scheme), usables);
+										Map.Entry<Collection<Atom>, Collection<Term>> found = scheme.getMatcher().matchAndOutput(table.get(scheme), indexes.get(scheme), usables);
 										for (Atom atom : found.getKey())
 											builder.addLiteral(new Literal.Builder( //
 													new Atom.Builder(atom).setWeight(mode.getWeigth()).setPriority(mode.getPriority()).build() //
@@ -460,6 +685,7 @@ public class Grounding implements Solvable {
 		int result = 1;
 		result = prime * result + Arrays.hashCode(covered);
 		result = prime * result + Arrays.hashCode(delta);
+		result = prime * result + depth;
 		result = prime * result + ((facts == null) ? 0 : facts.hashCode());
 		result = prime * result + Arrays.hashCode(generalisation);
 		result = prime * result + Arrays.hashCode(kernel);
@@ -486,6 +712,15 @@ public class Grounding implements Solvable {
 		return uncovered.length > 0;
 	}
 
+	/**
+	 * Returns whether the kernel was cut at the current depth, so that a
+	 * deeper kernel could have more literals.
+	 */
+	public final boolean isTruncated() {
+		getKernel();
+		return truncated;
+	}
+
 	public final boolean lookup(Atom atom) {
 		if (null == atom)
 			throw new IllegalArgumentException("Illegal 'atom' argument in Grounding.lookup(Atom): " + atom);
@@ -501,6 +736,33 @@ public class Grounding implements Solvable {
 		return Utils.save(this, iter, stream);
 	}
 
+	/**
+	 * Removes the body literals that are renamings of other literals and the
+	 * clauses that are renamings of other clauses, so that the inductive
+	 * program has fewer choices but allows the same hypotheses.
+	 */
+	private static Set<Clause> reduce(Set<Clause> clauses) {
+		Set<Clause> result = new LinkedHashSet<>();
+		Map<String, List<Clause>> index = new HashMap<>();
+		for (Clause clause : clauses) {
+			Clause reduced = clause.reduce();
+			Atom head = reduced.getHead();
+			String key = null == head ? "" : head.getIdentifier() + "/" + head.getArity() + "/" + head.getWeight() + "@" + head.getPriority();
+			List<Clause> kept = index.computeIfAbsent(key + "/" + reduced.getSize(), k -> new ArrayList<>());
+			boolean variant = false;
+			for (Clause other : kept)
+				if (other.isVariant(reduced)) {
+					variant = true;
+					break;
+				}
+			if (!variant) {
+				kept.add(reduced);
+				result.add(reduced);
+			}
+		}
+		return result;
+	}
+
 	public Values solve(Values values, Answers.Builder builder) {
 		if (null == values)
 			throw new IllegalArgumentException("Illegal 'values' argument in Grounding.solve(int, Values, Answers.Builder): " + values);
@@ -510,13 +772,31 @@ public class Grounding implements Solvable {
 		if (this.needsInduction()) {
 			Dialler dialler = new Dialler.Builder(config, this, values).build();
 			Map.Entry<Values, Collection<Collection<String>>> entry = Answers.timeInduction(1, dialler);
-			result = entry.getKey();
+			// keep the best known bound when the call did not improve on it
+			if (!entry.getValue().isEmpty() && entry.getKey().compareTo(values) < 0)
+				result = entry.getKey();
+			List<Hypothesis> hypotheses = new ArrayList<>();
 			for (Collection<String> output : entry.getValue()) {
-				if (builder.size() > 0 && config.isTerminate())
+				if ((builder.size() > 0 || !hypotheses.isEmpty()) && config.isTerminate())
 					break;
-				Hypothesis hypothesis = Answers.timeDeduction(this, output);
+				hypotheses.add(Answers.timeDeduction(this, output));
+			}
+			// no hypothesis at the current cost, or only hypotheses leaving some
+			// examples uncovered: a deeper kernel allows more hypotheses, and
+			// the bound keeps it from returning worse ones
+			boolean uncovered = true;
+			for (Hypothesis hypothesis : hypotheses)
+				uncovered &= hypothesis.hasUncovered();
+			if (uncovered && depth < config.getDepth() && isTruncated()) {
+				if (config.isDebug())
+					Logger.message(String.format("*** Info  (%s): deepening Kernel to %d levels", Logger.SIGNATURE, 1 + depth));
+				return new Grounding(this, 1 + depth).solve(values, builder);
+			}
+			for (Hypothesis hypothesis : hypotheses) {
 				if (config.isDebug())
 					Logger.message(String.format("*** Info  (%s): found Hypothesis: %s", Logger.SIGNATURE, StringUtils.join(hypothesis.getHypotheses(), " ")));
+				if (config.isHeuristic())
+					problem.addHints(hypothesis.getHypotheses());
 				builder.put(entry.getKey(), new Answer.Builder(this).setHypothesis(hypothesis).build());
 			}
 		} else
@@ -16,6 +16,7 @@ import org.apache.commons.collections4.iterators.ArrayIterator;
 
 import xhail.core.Buildable;
 import xhail.core.Config;
+import xhail.core.parser.Model;
 import xhail.core.parser.Parser;
 import xhail.core.statements.Display;
 import xhail.core.statements.Example;
@@ -94,8 +95,11 @@ public class Hypothesis implements Iterable<Atom> {
 		public Builder parse(Collection<String> answer) {
 			if (null == answer)
 				throw new IllegalArgumentException("Illegal 'answer' argument in Hypothesis.Builder.parse(Collection<String>): " + answer);
-			for (String atom : answer)
-				addAtom(Parser.parseToken(atom));
+			if (answer instanceof Model)
+				addAtoms(((Model) answer).getAtoms());
+			else
+				for (String atom : answer)
+					addAtom(Parser.parseToken(atom));
 			return this;
 		}
 
@@ -9,24 +9,39 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 
 import xhail.core.Buildable;
 import xhail.core.Config;
 import xhail.core.Dialler;
+import xhail.core.Emitter;
+import xhail.core.GroundProgram;
 import xhail.core.Logger;
 import xhail.core.Utils;
 import xhail.core.parser.InputStates;
+import xhail.core.parser.Model;
 import xhail.core.parser.Parser;
 import xhail.core.parser.Splitter;
 import xhail.core.statements.Display;
@@ -37,6 +52,9 @@ import xhail.core.terms.Atom;
 import xhail.core.terms.Clause;
 import xhail.core.terms.Placemarker;
 import xhail.core.terms.Scheme;
+import xhail.core.terms.SchemeTerm;
+import xhail.core.terms.Term;
+import xhail.core.terms.Variable;
 
 /**
  * @author stefano
@@ -299,8 +317,44 @@ public class Problem implements Solvable {
 
 	}
 
+	/**
+	 * Speculative abduction, which may be cancelled even before its dialler
+	 * is built.
+	 */
+	private static class Speculation {
+
+		private boolean cancelled = false;
+
+		private Dialler dialler = null;
+
+		private Future<?> future = null;
+
+		private synchronized void cancel() {
+			cancelled = true;
+			if (null != future)
+				future.cancel(false);
+			if (null != dialler)
+				dialler.cancel();
+		}
+
+		private synchronized Dialler dial(Dialler dialler) {
+			this.dialler = dialler;
+			if (cancelled)
+				dialler.cancel();
+			return dialler;
+		}
+
+		private synchronized Speculation follow(Future<?> future) {
+			this.future = future;
+			return this;
+		}
+
+	}
+
 	private final String[] background;
 
+	private volatile String[] closure = null;
+
 	private final Config config;
 
 	private final Display[] displays;
@@ -309,14 +363,38 @@ public class Problem implements Solvable {
 
 	private final Example[] examples;
 
+	private final Set<Clause> hints;
+
 	private final Map<String, Set<Integer>> lookup;
 
 	private final ModeB[] modeBs;
 
+	private final Map<String, List<ModeB>> modeBsIndex;
+
 	private final ModeH[] modeHs;
 
+	private final Map<String, List<ModeH>> modeHsIndex;
+
+	/**
+	 * Program ground for the first iteration with <code>--reuse</code>,
+	 * shared with the copies of this problem for the same examples.
+	 */
+	private final AtomicReference<GroundProgram> ground;
+
+	private volatile byte[] induction = null;
+
+	private volatile byte[] postlude = null;
+
+	private volatile byte[] prelude = null;
+
 	private Set<String> refinements = new HashSet<>();
 
+	private volatile byte[] refined = null;
+
+	private volatile Set<String> relevant = null;
+
+	private volatile String[] slice = null;
+
 	private Problem(Builder builder) {
 		if (null == builder)
 			throw new IllegalArgumentException("Illegal 'builder' argument in Problem(Problem.Builder): " + builder);
@@ -325,9 +403,54 @@ public class Problem implements Solvable {
 		this.displays = builder.displays.toArray(new Display[builder.displays.size()]);
 		this.domains = builder.domains.toArray(new String[builder.domains.size()]);
 		this.examples = builder.examples.toArray(new Example[builder.examples.size()]);
+		this.ground = new AtomicReference<>();
+		this.hints = Collections.newSetFromMap(new ConcurrentHashMap<>());
 		this.lookup = builder.lookup;
 		this.modeBs = builder.modeBs.toArray(new ModeB[builder.modeBs.size()]);
+		this.modeBsIndex = index(modeBs, ModeB::getScheme);
 		this.modeHs = builder.modeHs.toArray(new ModeH[builder.modeHs.size()]);
+		this.modeHsIndex = index(modeHs, ModeH::getScheme);
+	}
+
+	private Problem(Problem problem, Example[] examples, Set<String> refinements) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Problem(Problem, Example[], Set<String>): " + problem);
+		if (null == examples)
+			throw new IllegalArgumentException("Illegal 'examples' argument in Problem(Problem, Example[], Set<String>): " + examples);
+		if (null == refinements)
+			throw new IllegalArgumentException("Illegal 'refinements' argument in Problem(Problem, Example[], Set<String>): " + refinements);
+		this.background = problem.background;
+		this.config = problem.config;
+		this.displays = problem.displays;
+		this.domains = problem.domains;
+		this.examples = examples;
+		this.ground = examples == problem.examples ? problem.ground : new AtomicReference<>();
+		this.hints = problem.hints;
+		this.lookup = problem.lookup;
+		this.modeBs = problem.modeBs;
+		this.modeBsIndex = problem.modeBsIndex;
+		this.modeHs = problem.modeHs;
+		this.modeHsIndex = problem.modeHsIndex;
+		this.refinements = refinements;
+		if (examples == problem.examples) {
+			this.closure = problem.closure;
+			this.induction = problem.induction;
+			this.postlude = problem.postlude;
+			this.prelude = problem.prelude;
+			this.refined = problem.refined;
+			this.relevant = problem.relevant;
+			this.slice = problem.slice;
+		}
+	}
+
+	/**
+	 * Remembers the clauses of a hypothesis, so that later inductions can
+	 * hint <code>clasp</code> towards the same choices.
+	 */
+	public final void addHints(Clause[] clauses) {
+		if (null == clauses)
+			throw new IllegalArgumentException("Illegal 'clauses' argument in Problem.addHints(Clause[]): " + clauses);
+		Collections.addAll(hints, clauses);
 	}
 
 	@Override
@@ -373,6 +496,54 @@ public class Problem implements Solvable {
 		return background;
 	}
 
+	/**
+	 * Returns the relevant background with its definite part materialised,
+	 * computing it only once for this problem.
+	 */
+	public final String[] getClosure() {
+		if (null == closure)
+			closure = Utils.closure(this);
+		return closure;
+	}
+
+	/**
+	 * Returns the modes whose scheme can possibly match an atom, looking
+	 * them up by predicate and arity before checking their constants.
+	 */
+	private static <T> List<T> candidates(Map<String, List<T>> index, Function<T, Scheme> scheme, Atom atom) {
+		List<T> result = new ArrayList<>();
+		for (T mode : index.getOrDefault(atom.getIdentifier() + "/" + atom.getArity(), Collections.emptyList()))
+			if (scheme.apply(mode).getMatcher().fits(atom))
+				result.add(mode);
+		return result;
+	}
+
+	/**
+	 * Adds the constants of a term that a scheme keeps in the
+	 * generalisation: those at <code>$</code> placemarkers and those the
+	 * scheme itself spells out.
+	 */
+	private static void fix(SchemeTerm scheme, Term term, Set<Term> fixed) {
+		if (scheme instanceof Placemarker && Placemarker.Type.CONSTANT != ((Placemarker) scheme).getType())
+			return;
+		if (term instanceof Atom && ((Atom) term).getArity() > 0) {
+			Atom atom = (Atom) term;
+			for (int i = 0; i < atom.getArity(); i++)
+				fix(scheme instanceof Scheme && ((Scheme) scheme).getArity() == atom.getArity() ? ((Scheme) scheme).getTerm(i) : null, atom.getTerm(i), fixed);
+		} else
+			fixed.add(term);
+	}
+
+	/**
+	 * Groups modes by the predicate and arity of their schemes.
+	 */
+	private static <T> Map<String, List<T>> index(T[] modes, Function<T, Scheme> scheme) {
+		Map<String, List<T>> result = new HashMap<>();
+		for (T mode : modes)
+			result.computeIfAbsent(scheme.apply(mode).getIdentifier() + "/" + scheme.apply(mode).getArity(), k -> new ArrayList<>()).add(mode);
+		return result;
+	}
+
 	public final Config getConfig() {
 		return config;
 	}
@@ -385,6 +556,35 @@ public class Problem implements Solvable {
 		return domains;
 	}
 
+	/**
+	 * Returns the dialler for the next abductive call: with
+	 * <code>--reuse</code>, refinements are added to the program ground for
+	 * the first iteration instead of grounding everything again. The program
+	 * is ground once for this problem and all its copies.
+	 */
+	private Dialler getDialler() {
+		if (config.isReuse() && !refinements.isEmpty()) {
+			GroundProgram program;
+			synchronized (ground) {
+				if (null == (program = ground.get())) {
+					Solvable base = (iter, stream) -> {
+						Emitter emitter = new Emitter(stream);
+						emitter.write(getPrelude());
+						emitter.write(getPostlude(false));
+						boolean result = !emitter.checkError();
+						emitter.close();
+						return result;
+					};
+					program = new Dialler.Builder(config, base).build().ground();
+					ground.set(program);
+				}
+			}
+			if (null != program)
+				return new Dialler.Builder(config, program, refinements).setSample(config.getSample()).build();
+		}
+		return new Dialler.Builder(config, this).setSample(config.getSample()).build();
+	}
+
 	public final Example[] getExamples() {
 		return examples;
 	}
@@ -414,21 +614,178 @@ public class Problem implements Solvable {
 			for (Placemarker placemarker : scheme.getPlacemarkers())
 				result.add(String.format("#show %s/1.", placemarker.getIdentifier()));
 		}
+		if (config.isHeuristic())
+			result.add("#show _heuristic/3.");
 		return result;
 	}
 
+	public final Collection<Clause> getHints() {
+		return Collections.unmodifiableSet(hints);
+	}
+
 	public final ModeB[] getModeBs() {
 		return modeBs;
 	}
 
+	public final ModeB[] getModeBs(Atom atom) {
+		if (null == atom)
+			throw new IllegalArgumentException("Illegal 'atom' argument in Problem.getModeBs(Atom): " + atom);
+		List<ModeB> result = candidates(modeBsIndex, ModeB::getScheme, atom);
+		return result.toArray(new ModeB[result.size()]);
+	}
+
 	public final ModeH[] getModeHs() {
 		return modeHs;
 	}
 
+	public final ModeH[] getModeHs(Atom atom) {
+		if (null == atom)
+			throw new IllegalArgumentException("Illegal 'atom' argument in Problem.getModeHs(Atom): " + atom);
+		List<ModeH> result = candidates(modeHsIndex, ModeH::getScheme, atom);
+		return result.toArray(new ModeH[result.size()]);
+	}
+
+	/**
+	 * Returns the rendered part of the abductive program following the
+	 * refinements, computing it only once.
+	 */
+	public final byte[] getPostlude(boolean refined) {
+		if (refined) {
+			if (null == this.refined)
+				this.refined = Utils.postlude(this, true);
+			return this.refined;
+		}
+		if (null == postlude)
+			postlude = Utils.postlude(this, false);
+		return postlude;
+	}
+
+	/**
+	 * Returns the rendered part of the abductive program preceding the
+	 * refinements, computing it only once.
+	 */
+	public final byte[] getPrelude() {
+		if (null == prelude)
+			prelude = Utils.prelude(this);
+		return prelude;
+	}
+
+	/**
+	 * Returns the rendered part of the inductive programs preceding the
+	 * compression rules, computing it only once for all the groundings.
+	 */
+	public final byte[] getPrelude(Grounding grounding) {
+		if (null == grounding)
+			throw new IllegalArgumentException("Illegal 'grounding' argument in Problem.getPrelude(Grounding): " + grounding);
+		if (null == induction)
+			induction = Utils.prelude(grounding);
+		return induction;
+	}
+
 	public final Collection<String> getRefinements() {
 		return refinements;
 	}
 
+	/**
+	 * Returns the part of a model the generalisation depends on: its atoms
+	 * with the predicate of an example, a mode or a type, and its abduced
+	 * atoms that some head mode subsumes, as only these start a kernel
+	 * clause. Constants are renamed in a canonical order, except those that
+	 * the modes keep in the generalisation, such as the ones at
+	 * <code>$</code> placemarkers. Models with the same signature have the
+	 * same generalisation.
+	 */
+	Set<Atom> getSignature(Collection<String> output) {
+		if (null == relevant) {
+			Set<String> identifiers = new HashSet<>();
+			for (Example example : examples)
+				identifiers.add(example.getAtom().getIdentifier());
+			for (ModeH mode : modeHs) {
+				identifiers.add(mode.getScheme().getIdentifier());
+				for (Placemarker placemarker : mode.getScheme().getPlacemarkers())
+					identifiers.add(placemarker.getIdentifier());
+			}
+			for (ModeB mode : modeBs) {
+				identifiers.add(mode.getScheme().getIdentifier());
+				for (Placemarker placemarker : mode.getScheme().getPlacemarkers())
+					identifiers.add(placemarker.getIdentifier());
+			}
+			relevant = identifiers;
+		}
+		Collection<Atom> atoms;
+		if (output instanceof Model)
+			atoms = ((Model) output).getAtoms();
+		else {
+			atoms = new ArrayList<>();
+			for (String token : output)
+				atoms.add(Parser.parseToken(token));
+		}
+		Set<Atom> result = new HashSet<>();
+		List<Atom> abduced = new ArrayList<>();
+		for (Atom atom : atoms)
+			if (atom.getIdentifier().startsWith("abduced_"))
+				abduced.add(new Atom.Builder(atom.getIdentifier().substring("abduced_".length())).addTerms(atom.getTerms()).build());
+			else if (relevant.contains(atom.getIdentifier()))
+				result.add(atom);
+		for (Atom alpha : abduced)
+			for (ModeH mode : getModeHs(alpha))
+				if (SchemeTerm.subsumes(mode.getScheme(), alpha, result)) {
+					result.add(new Atom.Builder("abduced_" + alpha.getIdentifier()).addTerms(alpha.getTerms()).build());
+					break;
+				}
+		Set<Term> fixed = new HashSet<>();
+		for (Atom atom : result) {
+			if (atom.getIdentifier().startsWith("abduced_"))
+				atom = new Atom.Builder(atom.getIdentifier().substring("abduced_".length())).addTerms(atom.getTerms()).build();
+			for (ModeH mode : getModeHs(atom))
+				fix(mode.getScheme(), atom, fixed);
+			for (ModeB mode : getModeBs(atom))
+				fix(mode.getScheme(), atom, fixed);
+		}
+		// atoms are renamed in the order of their shape, so that most
+		// renamings of a model end up the same
+		Map<Atom, String> shapes = new HashMap<>();
+		for (Atom atom : result)
+			shapes.put(atom, rename(atom, fixed, null).toString());
+		List<Atom> sorted = new ArrayList<>(result);
+		sorted.sort(Comparator.comparing((Atom atom) -> shapes.get(atom)).thenComparing(Atom::toString));
+		Map<Term, Variable> names = new HashMap<>();
+		Set<Atom> canonical = new HashSet<>();
+		for (Atom atom : sorted)
+			canonical.add(rename(atom, fixed, names));
+		return canonical;
+	}
+
+	/**
+	 * Renames the constants of a term that are not fixed, giving them the
+	 * next name in order, or the same name <code>_</code> if there are no
+	 * names.
+	 */
+	private static Atom rename(Atom atom, Set<Term> fixed, Map<Term, Variable> names) {
+		Atom.Builder builder = new Atom.Builder(atom.getIdentifier());
+		for (Term term : atom.getTerms())
+			if (term instanceof Atom && ((Atom) term).getArity() > 0)
+				builder.addTerm(rename((Atom) term, fixed, names));
+			else if (fixed.contains(term))
+				builder.addTerm(term);
+			else if (null == names)
+				builder.addTerm(new Variable.Builder("_").build());
+			else
+				builder.addTerm(names.computeIfAbsent(term, k -> new Variable.Builder("C" + (1 + names.size())).build()));
+		return builder.build();
+	}
+
+	/**
+	 * Returns the background statements relevant to the examples, the modes
+	 * and the displays with <code>--slice</code>, or the whole background,
+	 * computing them only once for this problem.
+	 */
+	public final String[] getSlice() {
+		if (null == slice)
+			slice = config.isSlice() ? Utils.slice(this) : background;
+		return slice;
+	}
+
 	public final boolean hasBackground() {
 		return background.length > 0;
 	}
@@ -485,48 +842,387 @@ public class Problem implements Solvable {
 		return count;
 	}
 
+	/**
+	 * Returns a copy of this problem with the given examples added, which
+	 * keeps the refinements found so far.
+	 */
+	Problem extend(Collection<Example> examples) {
+		if (null == examples)
+			throw new IllegalArgumentException("Illegal 'examples' argument in Problem.extend(Collection<Example>): " + examples);
+		Set<Example> set = new LinkedHashSet<>();
+		Collections.addAll(set, this.examples);
+		set.addAll(examples);
+		return new Problem(this, set.toArray(new Example[set.size()]), new HashSet<>(refinements));
+	}
+
+	/**
+	 * Saves the state of the search: if an abductive call is given, only its
+	 * models after the first <code>done</code> are left to try on resuming.
+	 */
+	private void checkpoint(Checkpoint.Writer writer, int iter, Values values, Set<Set<Atom>> signatures, List<Collection<String>> tried,
+			Map.Entry<Values, Collection<Collection<String>>> entry, int size, int done, Answers.Builder builder) {
+		Checkpoint.Builder checkpoint = new Checkpoint.Builder(this).setIter(iter).setValues(values).addRefinements(refinements).addSignatures(signatures)
+				.setAnswers(builder.build());
+		for (Collection<String> output : tried)
+			checkpoint.addTried(output);
+		if (null != entry) {
+			checkpoint.setPending(entry.getKey(), size);
+			int index = 0;
+			for (Collection<String> output : entry.getValue())
+				if (index++ >= done)
+					checkpoint.addPending(output);
+		}
+		writer.save(checkpoint.build());
+	}
+
+	private Grounding deduce(int iter, int iit, Collection<String> output, Table table) {
+		Grounding grounding = null == table ? Answers.timeDeduction(this, output) : Answers.timeDeduction(this, output, table);
+		if (config.isDebug()) {
+			Logger.message(String.format("*** Info  (%s): found Delta: %s", Logger.SIGNATURE, StringUtils.join(grounding.getDelta(), " ")));
+			Logger.message(String.format("*** Info  (%s): found Kernel: %s", Logger.SIGNATURE, StringUtils.join(grounding.getKernel(), " ")));
+			Logger.message(String.format("*** Info  (%s): found Generalisation: %s", Logger.SIGNATURE, StringUtils.join(grounding.getGeneralisation(), " ")));
+			if (grounding.needsInduction())
+				Utils.saveTemp(grounding, iter, Paths.get(String.format("%s_abd%d_ind%d.lp", config.getName(), iter, iit)));
+		}
+		return grounding;
+	}
+
 	public final Answers solve() {
+		if (config.getShards() > 1) {
+			Answers answers = solveShards();
+			if (null != answers)
+				return answers;
+		}
+		return search(new HashSet<>(), new ArrayList<>(), false).build();
+	}
+
+	/**
+	 * Runs the abductive, deductive and inductive loop, skipping the given
+	 * generalisations and collecting the groundings that were induced.
+	 */
+	Answers.Builder search(Set<Collection<Clause>> generalisations, Collection<Grounding> groundings, boolean quiet) {
+		if (null == generalisations)
+			throw new IllegalArgumentException("Illegal 'generalisations' argument in Problem.search(Set<Collection<Clause>>, Collection<Grounding>, boolean): " + generalisations);
+		if (null == groundings)
+			throw new IllegalArgumentException("Illegal 'groundings' argument in Problem.search(Set<Collection<Clause>>, Collection<Grounding>, boolean): " + groundings);
 		Answers.Builder builder = new Answers.Builder(config);
 		if (background.length > 0 || examples.length > 0 || modeHs.length > 0 || modeBs.length > 0) {
 			int iter = 0;
-			Set<Collection<Clause>> generalisations = new HashSet<>();
-			while (!builder.isMeaningful() && iter <= config.getIterations()) {
-				if (config.isDebug())
-					Utils.saveTemp(this, iter, Paths.get(String.format("%s_abd%d.lp", config.getName(), iter)));
-
-				int iit = 0;
-				Values values = new Values();
-				Dialler dialler = new Dialler.Builder(config, this).build();
-				Map.Entry<Values, Collection<Collection<String>>> entry = Answers.timeAbduction(iter, dialler);
-				for (Collection<String> output : entry.getValue()) {
-					if (builder.size() > 0 && config.isTerminate())
-						break;
+			boolean exhausted = false;
+			Values values = new Values();
+			ExecutorService service = config.isEager() ? Executors.newSingleThreadExecutor() : null;
+			Speculation speculation = null;
+			Future<Map.Entry<Values, Collection<Collection<String>>>> next = null;
+			Set<String> predicted = null;
+			// models with the same signature as a previous one are skipped
+			Set<Set<Atom>> signatures = new HashSet<>();
+			// the models induced so far, kept to checkpoint the search
+			Path resume = quiet ? null : config.getResume();
+			List<Collection<String>> tried = new ArrayList<>();
+			Map.Entry<Values, Collection<Collection<String>>> pending = null;
+			int resumed = 0;
+			Checkpoint checkpoint = null == resume ? null : Checkpoint.load(this, resume);
+			Checkpoint.Writer writer = null == resume ? null : new Checkpoint.Writer(this, resume, checkpoint);
+			if (null != checkpoint) {
+				iter = checkpoint.getIter();
+				values = checkpoint.getValues();
+				refinements.addAll(checkpoint.getRefinements());
+				signatures.addAll(checkpoint.getSignatures());
+				// deduction is cheap: the generalisations are rebuilt from their models
+				for (Collection<String> output : checkpoint.getTried()) {
 					Grounding grounding = Answers.timeDeduction(this, output);
-					if (config.isDebug()) {
-						Logger.message(String.format("*** Info  (%s): found Delta: %s", Logger.SIGNATURE, StringUtils.join(grounding.getDelta(), " ")));
-						Logger.message(String.format("*** Info  (%s): found Kernel: %s", Logger.SIGNATURE, StringUtils.join(grounding.getKernel(), " ")));
-						Logger.message(String.format("*** Info  (%s): found Generalisation: %s", Logger.SIGNATURE, StringUtils.join(grounding.getGeneralisation(), " ")));
-						if (grounding.needsInduction())
-							Utils.saveTemp(grounding, iter, Paths.get(String.format("%s_abd%d_ind%d.lp", config.getName(), iter, iit++)));
-					}
 					Set<Clause> generalisation = new HashSet<Clause>();
 					Collections.addAll(generalisation, grounding.getGeneralisation());
-					if (!generalisations.contains(generalisation)) {
-						values = grounding.solve(values, builder);
-						// always add refinements, hopefully it won't be used!
-						refinements.add(grounding.asBadSolution());
-						generalisations.add(generalisation);
+					generalisations.add(generalisation);
+					groundings.add(grounding);
+					tried.add(output);
+				}
+				for (Answer answer : checkpoint.getAnswers())
+					builder.put(checkpoint.getAnswers().getValues(), answer);
+				count = builder.size();
+				if (null != checkpoint.getAbduced()) {
+					pending = new SimpleEntry<>(checkpoint.getAbduced(), new ArrayList<>(checkpoint.getPending()));
+					resumed = checkpoint.getSize();
+				}
+				if (config.isDebug())
+					Logger.message(String.format("*** Info  (%s): resuming from checkpoint at iteration %d", Logger.SIGNATURE, iter));
+			}
+			try {
+				while (!exhausted && !builder.isMeaningful() && iter <= config.getIterations()) {
+					if (config.isDebug())
+						Utils.saveTemp(this, iter, Paths.get(String.format("%s_abd%d.lp", config.getName(), iter)));
+
+					int iit = 0;
+					int size = refinements.size();
+					Map.Entry<Values, Collection<Collection<String>>> entry = null;
+					if (null != next)
+						try {
+							entry = next.get();
+						} catch (InterruptedException | ExecutionException e) {
+							entry = null;
+						}
+					if (null == entry && null != pending) {
+						entry = pending;
+						size = resumed;
+						pending = null;
+					}
+					if (null == entry) {
+						entry = Answers.timeAbduction(iter, getDialler());
+					}
+					next = null;
+					Set<Set<Atom>> settled = null == resume ? null : new HashSet<>(signatures);
+					int done = 0;
+					// the facts shared by all the models are looked up once
+					Table table = entry.getValue().size() > 1 ? new Table(this, entry.getValue()) : null;
+
+					// deduce everything first: the refinements are known before
+					// any induction, so the next abduction can already start
+					Map<Collection<String>, Grounding> deduced = new HashMap<>();
+					if (null != service && iter < config.getIterations()) {
+						predicted = new HashSet<>(refinements);
+						Set<Collection<Clause>> seen = new HashSet<>(generalisations);
+						for (Collection<String> output : entry.getValue()) {
+							if (!signatures.add(getSignature(output)))
+								continue;
+							Grounding grounding = deduce(iter, iit, output, table);
+							if (config.isDebug() && grounding.needsInduction())
+								iit += 1;
+							deduced.put(output, grounding);
+							Set<Clause> generalisation = new HashSet<Clause>();
+							Collections.addAll(generalisation, grounding.getGeneralisation());
+							if (seen.add(generalisation))
+								predicted.add(grounding.asBadSolution());
+						}
+						if (predicted.size() > size) {
+							final int following = 1 + iter;
+							final Problem problem = new Problem(this, examples, predicted);
+							final Speculation current = new Speculation();
+							// grounding, if any, also overlaps induction
+							next = service.submit(() -> Answers.timeAbduction(following, current.dial(problem.getDialler())));
+							speculation = current.follow(next);
+						}
+					}
+
+					boolean complete = true;
+					for (Collection<String> output : entry.getValue()) {
+						if (builder.size() > 0 && config.isTerminate()) {
+							complete = false;
+							break;
+						}
+						done += 1;
+						Grounding grounding = deduced.get(output);
+						if (null == grounding) {
+							if (!signatures.add(getSignature(output))) {
+								if (config.isDebug())
+									Logger.message(String.format("*** Info  (%s): skipping a model equivalent to a previous one", Logger.SIGNATURE));
+								continue;
+							}
+							grounding = deduce(iter, iit, output, table);
+							if (config.isDebug() && grounding.needsInduction())
+								iit += 1;
+						}
+						Set<Clause> generalisation = new HashSet<Clause>();
+						Collections.addAll(generalisation, grounding.getGeneralisation());
+						if (!generalisations.contains(generalisation)) {
+							values = grounding.solve(values, builder);
+							// always add refinements, hopefully it won't be used!
+							refinements.add(grounding.asBadSolution());
+							generalisations.add(generalisation);
+							groundings.add(grounding);
+							if (null != resume) {
+								tried.add(output);
+								checkpoint(writer, iter, values, settled, tried, entry, size, done, builder);
+							}
+						}
+						count = builder.size();
+					}
+					// without new refinements the next abductive program is the same,
+					// unless some of its models were left out by --terminate
+					exhausted = complete && refinements.size() == size;
+					iter += 1;
+					if (null != resume)
+						checkpoint(writer, iter, values, signatures, tried, null, 0, 0, builder);
+
+					// the speculative abduction is only useful if the loop goes on
+					// with exactly the refinements it was started with
+					if (null != next && (exhausted || builder.isMeaningful() || !refinements.equals(predicted))) {
+						speculation.cancel();
+						next = null;
 					}
-					count = builder.size();
 				}
-				iter += 1;
+			} finally {
+				if (null != writer)
+					writer.close();
+				if (null != next)
+					speculation.cancel();
+				// a cancelled speculation ends by itself, while interrupting it
+				// could stop a grounding shared with the next calls
+				if (null != service)
+					service.shutdown();
+			}
+			if (!quiet) {
+				if (builder.size() > 0 && config.isTerminate())
+					System.out.println(String.format("*** Info  (%s): search for hypotheses terminated after the first match", Logger.SIGNATURE));
+				if (!builder.isMeaningful())
+					if (exhausted)
+						System.out.println(String.format("*** Info  (%s): no meaningful answers, search space exhausted after %d iteration/s", Logger.SIGNATURE, iter));
+					else
+						System.out.println(String.format("*** Info  (%s): no meaningful answers, try more iterations (--iter,-i <num>)", Logger.SIGNATURE));
+			}
+		}
+		return builder;
+	}
+
+	/**
+	 * Learns on each shard of the examples in parallel, then merges the
+	 * generalisations behind the best answers of every shard and checks them
+	 * against all the examples with a single inductive call. Returns
+	 * <code>null</code> if the merged hypotheses are not meaningful, so that
+	 * the whole problem is solved as usual.
+	 *
+	 * @return the answers found, or <code>null</code>
+	 */
+	private Answers solveShards() {
+		List<Example[]> shards = getShards(config.getShards());
+		if (shards.size() < 2)
+			return null;
+		if (config.isDebug())
+			Logger.message(String.format("*** Info  (%s): solving %d shards of examples", Logger.SIGNATURE, shards.size()));
+		ExecutorService service = Executors.newFixedThreadPool(shards.size());
+		Grounding.Builder merged = new Grounding.Builder(this);
+		try {
+			List<Future<Answers.Builder>> futures = new ArrayList<>();
+			for (Example[] shard : shards) {
+				final Problem problem = new Problem(this, shard, new HashSet<>());
+				futures.add(service.submit(() -> problem.search(new HashSet<>(), new ArrayList<>(), true)));
+			}
+			for (Future<Answers.Builder> future : futures) {
+				Answers.Builder answers = future.get();
+				if (!answers.isMeaningful())
+					return null;
+				for (Answer answer : answers.build())
+					merged.addGrounding(answer.getGrounding());
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			return null;
+		} finally {
+			service.shutdownNow();
+		}
+		Answers.Builder builder = new Answers.Builder(config);
+		Grounding grounding = merged.build();
+		if (config.isDebug())
+			Logger.message(String.format("*** Info  (%s): found merged Generalisation: %s", Logger.SIGNATURE, StringUtils.join(grounding.getGeneralisation(), " ")));
+		grounding.solve(new Values(), builder);
+		count = builder.size();
+		return builder.isMeaningful() ? builder.build() : null;
+	}
+
+	/**
+	 * Partitions the examples in at most <code>size</code> shards. Examples
+	 * sharing constants, directly or through the background facts, stay in
+	 * the same shard; if everything is connected, examples are split by
+	 * predicate instead.
+	 *
+	 * @param size
+	 *            the maximum number of shards
+	 * @return the non-empty shards found
+	 */
+	private List<Example[]> getShards(int size) {
+		Map<String, String> parents = new HashMap<>();
+		for (String statement : background)
+			if (!statement.startsWith("#") && !statement.contains(":-"))
+				union(parents, constants(statement));
+		for (Example example : examples)
+			union(parents, constants(example.getAtom().toString()));
+
+		Map<String, List<Example>> components = new LinkedHashMap<>();
+		for (Example example : examples) {
+			Atom atom = example.getAtom();
+			List<String> constants = constants(atom.toString());
+			String key = constants.isEmpty() ? atom.getIdentifier() + "/" + atom.getArity() : find(parents, constants.get(0));
+			components.computeIfAbsent(key, k -> new ArrayList<>()).add(example);
+		}
+		if (components.size() < 2) {
+			components.clear();
+			for (Example example : examples) {
+				Atom atom = example.getAtom();
+				components.computeIfAbsent(atom.getIdentifier() + "/" + atom.getArity(), k -> new ArrayList<>()).add(example);
+			}
+		}
+
+		// largest components first, each to the currently smallest shard
+		List<List<Example>> sorted = new ArrayList<>(components.values());
+		sorted.sort((one, two) -> two.size() - one.size());
+		List<List<Example>> shards = new ArrayList<>();
+		for (List<Example> component : sorted)
+			if (shards.size() < size)
+				shards.add(new ArrayList<>(component));
+			else {
+				List<Example> smallest = shards.get(0);
+				for (List<Example> shard : shards)
+					if (shard.size() < smallest.size())
+						smallest = shard;
+				smallest.addAll(component);
+			}
+
+		List<Example[]> result = new ArrayList<>();
+		for (List<Example> shard : shards)
+			result.add(shard.toArray(new Example[shard.size()]));
+		return result;
+	}
+
+	/**
+	 * Cheaply extracts the constants (numbers, strings and identifiers not
+	 * used as functors) from a statement, without parsing it.
+	 */
+	private static List<String> constants(String statement) {
+		List<String> result = new ArrayList<>();
+		int length = statement.length();
+		for (int i = 0; i < length;) {
+			char c = statement.charAt(i);
+			int start = i;
+			if ('"' == c) {
+				for (i += 1; i < length && '"' != statement.charAt(i); i++)
+					if ('\\' == statement.charAt(i))
+						i += 1;
+				i = Math.min(length, i + 1);
+				result.add(statement.substring(start, i));
+			} else if (Character.isDigit(c)) {
+				while (i < length && Character.isDigit(statement.charAt(i)))
+					i += 1;
+				result.add(statement.substring(start, i));
+			} else if (Character.isLetter(c) || '_' == c) {
+				while (i < length && (Character.isLetterOrDigit(statement.charAt(i)) || '_' == statement.charAt(i)))
+					i += 1;
+				if (Character.isLowerCase(c) && (i == length || '(' != statement.charAt(i)) && !"not".equals(statement.substring(start, i)))
+					result.add(statement.substring(start, i));
+			} else
+				i += 1;
+		}
+		return result;
+	}
+
+	private static String find(Map<String, String> parents, String constant) {
+		String root = constant;
+		for (String parent; null != (parent = parents.get(root)) && !parent.equals(root);)
+			root = parent;
+		for (String parent; !constant.equals(root); constant = parent) {
+			parent = parents.get(constant);
+			parents.put(constant, root);
+		}
+		return root;
+	}
+
+	private static void union(Map<String, String> parents, List<String> constants) {
+		if (!constants.isEmpty()) {
+			String root = find(parents, constants.get(0));
+			parents.putIfAbsent(root, root);
+			for (String constant : constants) {
+				String other = find(parents, constant);
+				if (!other.equals(root))
+					parents.put(other, root);
 			}
-			if (builder.size() > 0 && config.isTerminate())
-				System.out.println(String.format("*** Info  (%s): search for hypotheses terminated after the first match", Logger.SIGNATURE));
-			if (!builder.isMeaningful())
-				System.out.println(String.format("*** Info  (%s): no meaningful answers, try more iterations (--iter,-i <num>)", Logger.SIGNATURE));
 		}
-		return builder.build();
 	}
 
 	@Override
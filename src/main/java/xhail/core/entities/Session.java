@@ -0,0 +1,192 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import xhail.core.Dialler;
+import xhail.core.Emitter;
+import xhail.core.Logger;
+import xhail.core.statements.Display;
+import xhail.core.statements.Example;
+import xhail.core.terms.Atom;
+import xhail.core.terms.Clause;
+import xhail.core.terms.Number;
+
+/**
+ * Incremental learning over a problem whose examples arrive over time. New
+ * examples are checked first against the current hypotheses, then against
+ * the generalisations already induced, and only as a last resort the search
+ * is resumed with the refinements found so far.
+ *
+ * @author stefano
+ *
+ */
+public class Session {
+
+	/**
+	 * Program checking whether some hypotheses cover the new examples and
+	 * every example that is not defeasible. If they do, they are still
+	 * optimal: defeasible examples found before stay covered or uncovered
+	 * as they were, and no other hypotheses can cover more of the new ones.
+	 * The literals of the hypotheses are fixed, so that the values found are
+	 * those of the induction over the extended problem.
+	 */
+	private static class Check implements Solvable {
+
+		private final Collection<Example> added;
+
+		private final Answer answer;
+
+		private final Problem problem;
+
+		private Check(Problem problem, Answer answer, Collection<Example> added) {
+			this.added = added;
+			this.answer = answer;
+			this.problem = problem;
+		}
+
+		@Override
+		public boolean save(int iter, OutputStream stream) {
+			if (iter < 0)
+				throw new IllegalArgumentException("Illegal 'iter' argument in Session.Check.save(int, OutputStream): " + iter);
+			if (null == stream)
+				throw new IllegalArgumentException("Illegal 'stream' argument in Session.Check.save(int, OutputStream): " + stream);
+			Emitter emitter = new Emitter(stream);
+			Set<String> filters = new LinkedHashSet<>();
+			filters.add("#hide.");
+			for (Display display : problem.getDisplays())
+				filters.add(String.format("#show %s/%d.", display.getIdentifier(), display.getArity()));
+			for (Example example : problem.getExamples())
+				filters.add(String.format("#show %s/%d.", example.getAtom().getIdentifier(), example.getAtom().getArity()));
+			for (String filter : filters)
+				emitter.println(filter);
+			for (String statement : problem.getDomains())
+				emitter.println(statement);
+			for (String statement : problem.getBackground())
+				emitter.println(statement);
+			for (Clause hypothesis : answer.getHypotheses())
+				emitter.println(hypothesis.asGuarded());
+			for (Example example : problem.getExamples()) {
+				emitter.println(example.asClauses()[1]);
+				if (!example.isDefeasible() || added.contains(example))
+					emitter.append(":-").append(example.isNegated() ? "" : "not ").append(example.getAtom()).println(".");
+			}
+			Clause[] generalisation = answer.getGrounding().getGeneralisation();
+			for (Atom literal : answer.getHypothesis()) {
+				int clauseId = ((Number) literal.getTerm(0)).getValue();
+				int literalId = ((Number) literal.getTerm(1)).getValue();
+				if (0 <= clauseId && clauseId < generalisation.length) {
+					Clause clause = generalisation[clauseId];
+					int weight = 0 == literalId ? clause.getHead().getWeight() : clause.getBody(literalId).getWeight();
+					int priority = 0 == literalId ? clause.getHead().getPriority() : clause.getBody(literalId).getPriority();
+					emitter.append("{ ").append(literal).println(" }.");
+					emitter.append(":-not ").append(literal).println(".");
+					emitter.append("#minimize[ ").append(literal).append(" =").append(weight).append(" @").append(priority).println(" ].");
+				}
+			}
+			boolean result = !emitter.checkError();
+			emitter.close();
+			return result;
+		}
+
+	}
+
+	private Answers answers = null;
+
+	private final Set<Collection<Clause>> generalisations = new HashSet<>();
+
+	private final List<Grounding> groundings = new ArrayList<>();
+
+	private Problem problem;
+
+	public Session(Problem problem) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Session(Problem): " + problem);
+		this.problem = problem;
+	}
+
+	public final Answers addExample(Example example) {
+		if (null == example)
+			throw new IllegalArgumentException("Illegal 'example' argument in Session.addExample(Example): " + example);
+		return addExamples(Collections.singleton(example));
+	}
+
+	public final Answers addExamples(Collection<Example> examples) {
+		if (null == examples)
+			throw new IllegalArgumentException("Illegal 'examples' argument in Session.addExamples(Collection<Example>): " + examples);
+		problem = problem.extend(examples);
+		if (null == answers)
+			return solve();
+		Answers.Builder builder = check(examples);
+		if (!builder.isMeaningful())
+			builder = reinduce();
+		if (!builder.isMeaningful()) {
+			if (problem.getConfig().isDebug())
+				Logger.message(String.format("*** Info  (%s): resuming the search with %d refinement/s", Logger.SIGNATURE, problem.getRefinements().size()));
+			builder = problem.search(generalisations, groundings, false);
+		}
+		answers = builder.build();
+		return answers;
+	}
+
+	/**
+	 * Keeps the current answers whose hypotheses still cover the given new
+	 * examples and every example that is not defeasible.
+	 */
+	private Answers.Builder check(Collection<Example> examples) {
+		Answers.Builder builder = new Answers.Builder(problem.getConfig());
+		for (Answer answer : answers)
+			if (answer.isMeaningful()) {
+				Dialler dialler = new Dialler.Builder(problem.getConfig(), new Check(problem, answer, examples)).build();
+				Map.Entry<Values, Collection<Collection<String>>> entry = Answers.timeInduction(0, dialler);
+				for (Collection<String> output : entry.getValue()) {
+					Grounding grounding = new Grounding.Builder(problem).addGrounding(answer.getGrounding()).build();
+					Hypothesis.Builder hypothesis = new Hypothesis.Builder(grounding).parse(output);
+					for (Atom literal : answer.getHypothesis())
+						hypothesis.addAtom(literal);
+					builder.put(entry.getKey(), new Answer.Builder(grounding).setHypothesis(hypothesis.build()).build());
+				}
+			}
+		if (builder.isMeaningful() && problem.getConfig().isDebug())
+			Logger.message(String.format("*** Info  (%s): current hypotheses cover the new examples", Logger.SIGNATURE));
+		return builder;
+	}
+
+	public final Answers getAnswers() {
+		return answers;
+	}
+
+	public final Problem getProblem() {
+		return problem;
+	}
+
+	/**
+	 * Induces again every generalisation found so far against all the
+	 * examples.
+	 */
+	private Answers.Builder reinduce() {
+		Answers.Builder builder = new Answers.Builder(problem.getConfig());
+		Values values = new Values();
+		for (Grounding previous : groundings)
+			values = new Grounding.Builder(problem).addGrounding(previous).build().solve(values, builder);
+		if (builder.isMeaningful() && problem.getConfig().isDebug())
+			Logger.message(String.format("*** Info  (%s): previous generalisations explain the new examples", Logger.SIGNATURE));
+		return builder;
+	}
+
+	public final Answers solve() {
+		answers = problem.search(generalisations, groundings, false).build();
+		return answers;
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.IteratorUtils;
+
+import xhail.core.parser.Model;
+import xhail.core.parser.Parser;
+import xhail.core.statements.ModeB;
+import xhail.core.statements.ModeH;
+import xhail.core.terms.Atom;
+import xhail.core.terms.Placemarker;
+import xhail.core.terms.SchemeTerm;
+
+/**
+ * Table from schemes and placemarkers to the facts they subsume, layered
+ * over the facts shared by all the models of an abductive call: the shared
+ * layer is computed once, and each grounding only looks its own facts up.
+ *
+ * @author stefano
+ *
+ */
+public class Table {
+
+	/**
+	 * Set made of a shared layer and of the atoms of a single grounding; the
+	 * shared layer is copied before any of its atoms is removed.
+	 */
+	private static class Layer extends AbstractSet<Atom> {
+
+		private Set<Atom> own;
+
+		private Set<Atom> shared;
+
+		private Layer(Set<Atom> shared, Set<Atom> own) {
+			this.shared = shared;
+			this.own = own;
+		}
+
+		@Override
+		public boolean add(Atom atom) {
+			return !shared.contains(atom) && own.add(atom);
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return shared.contains(object) || own.contains(object);
+		}
+
+		@Override
+		public Iterator<Atom> iterator() {
+			return IteratorUtils.unmodifiableIterator(IteratorUtils.chainedIterator(shared.iterator(), own.iterator()));
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (shared.contains(object)) {
+				Set<Atom> copy = new HashSet<>(shared);
+				copy.addAll(own);
+				own = copy;
+				shared = Collections.emptySet();
+			}
+			return own.remove(object);
+		}
+
+		@Override
+		public int size() {
+			return shared.size() + own.size();
+		}
+
+	}
+
+	private final Map<SchemeTerm, Set<Atom>> base;
+
+	private final Set<Atom> common;
+
+	private final ModeB[] modeBs;
+
+	private final ModeH[] modeHs;
+
+	private final Set<String> types = new HashSet<>();
+
+	public Table(Problem problem, Collection<? extends Collection<String>> outputs) {
+		if (null == problem)
+			throw new IllegalArgumentException("Illegal 'problem' argument in Table(Problem, Collection<Collection<String>>): " + problem);
+		if (null == outputs)
+			throw new IllegalArgumentException("Illegal 'outputs' argument in Table(Problem, Collection<Collection<String>>): " + outputs);
+		this.modeHs = problem.getModeHs();
+		this.modeBs = problem.getModeBs();
+		for (ModeH mode : modeHs)
+			for (Placemarker placemarker : mode.getScheme().getPlacemarkers())
+				types.add(placemarker.getIdentifier());
+		for (ModeB mode : modeBs)
+			for (Placemarker placemarker : mode.getScheme().getPlacemarkers())
+				types.add(placemarker.getIdentifier());
+		this.common = common(outputs);
+		this.base = SchemeTerm.lookup(modeHs, modeBs, common);
+	}
+
+	/**
+	 * Returns the facts, that is the atoms not abduced, in every output.
+	 */
+	private static Set<Atom> common(Collection<? extends Collection<String>> outputs) {
+		Model shared = null;
+		for (Collection<String> output : outputs) {
+			if (!(output instanceof Model)) {
+				shared = null;
+				break;
+			}
+			shared = null == shared ? (Model) output : shared.retain((Model) output);
+			if (null == shared)
+				break;
+		}
+		Collection<Atom> atoms;
+		if (null != shared)
+			atoms = shared.getAtoms();
+		else {
+			Set<String> tokens = null;
+			for (Collection<String> output : outputs)
+				if (null == tokens)
+					tokens = new HashSet<>(output);
+				else
+					tokens.retainAll(output instanceof Set ? output : new HashSet<>(output));
+			atoms = new ArrayList<>();
+			if (null != tokens)
+				for (String token : tokens)
+					atoms.add(Parser.parseToken(token));
+		}
+		Set<Atom> result = new HashSet<>();
+		for (Atom atom : atoms)
+			if (!atom.getIdentifier().startsWith("abduced_"))
+				result.add(atom);
+		return result;
+	}
+
+	/**
+	 * Returns the table of the given facts: only the facts outside of the
+	 * shared layer are looked up, unless some of them are types that could
+	 * widen the shared layer itself.
+	 */
+	public Map<SchemeTerm, Set<Atom>> lookup(Set<Atom> facts) {
+		if (null == facts)
+			throw new IllegalArgumentException("Illegal 'facts' argument in Table.lookup(Set<Atom>): " + facts);
+		List<Atom> own = new ArrayList<>();
+		for (Atom fact : facts)
+			if (!common.contains(fact)) {
+				if (1 == fact.getArity() && types.contains(fact.getIdentifier()))
+					return SchemeTerm.lookup(modeHs, modeBs, facts);
+				own.add(fact);
+			}
+		if (own.size() + common.size() != facts.size())
+			return SchemeTerm.lookup(modeHs, modeBs, facts);
+		Map<SchemeTerm, Set<Atom>> parts = SchemeTerm.lookup(modeHs, modeBs, own, facts);
+		Map<SchemeTerm, Set<Atom>> result = new HashMap<>();
+		for (Map.Entry<SchemeTerm, Set<Atom>> entry : base.entrySet())
+			result.put(entry.getKey(), new Layer(entry.getValue(), parts.get(entry.getKey())));
+		return result;
+	}
+
+}
@@ -5,8 +5,11 @@ package xhail.core.parser;
 
 import java.io.InputStream;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,8 +23,12 @@ import xhail.core.parser.Parser.ParserErrorException;
  */
 public class Acquirer {
 
+	private static final String ABDUCED = "abduced_";
+
 	private static final String FOUND = "FOUND";
 
+	private static final String HEURISTIC = "_heuristic(";
+
 	private static final String OPTIMIZATION = "Optimization:";
 
 	private static final String OPTIMUM = "OPTIMUM";
@@ -38,9 +45,19 @@ public class Acquirer {
 		return new Acquirer(Tokeniser.from(stream));
 	}
 
+	private final BitSet abduced = new BitSet();
+
 	private Set<Collection<String>> answers;
 
-	private Set<String> atoms;
+	private BitSet atoms;
+
+	private final List<BitSet> deltas = new ArrayList<>();
+
+	private final Dictionary dictionary = new Dictionary();
+
+	private final List<Model> kept = new ArrayList<>();
+
+	private int sample = 0;
 
 	private String token;
 
@@ -55,6 +72,16 @@ public class Acquirer {
 		this.token = tokeniser.next();
 	}
 
+	private static double distance(BitSet delta, BitSet other) {
+		BitSet union = (BitSet) delta.clone();
+		union.or(other);
+		if (union.isEmpty())
+			return 0.0;
+		BitSet intersection = (BitSet) delta.clone();
+		intersection.and(other);
+		return 1.0 - (double) intersection.cardinality() / union.cardinality();
+	}
+
 	private boolean isNumber(String token) {
 		if (null == token || (token = token.trim()).isEmpty())
 			return false;
@@ -64,6 +91,55 @@ public class Acquirer {
 		return result;
 	}
 
+	/**
+	 * Adds a model to the answers or, once <code>sample</code> models are
+	 * kept, swaps it for the kept model closest to the others whenever it is
+	 * farther than that from all the rest, as the Jaccard distance of the
+	 * abduced atoms: the sample stays bounded and diverse while models stream
+	 * in. The first model found at the best cost is never swapped, so that a
+	 * larger sample always includes the model kept by <code>--sample 1</code>.
+	 */
+	private void keep(BitSet atoms) {
+		Model model = new Model(dictionary, atoms);
+		if (sample <= 0) {
+			answers.add(model);
+			return;
+		}
+		if (answers.contains(model))
+			return;
+		BitSet delta = (BitSet) atoms.clone();
+		delta.and(abduced);
+		if (kept.size() < sample) {
+			answers.add(model);
+			deltas.add(delta);
+			kept.add(model);
+			return;
+		}
+		int crowded = -1;
+		double closest = Double.MAX_VALUE;
+		for (int i = 1; i < kept.size(); i++) {
+			double distance = nearest(deltas.get(i), i, -1);
+			if (distance < closest) {
+				closest = distance;
+				crowded = i;
+			}
+		}
+		if (crowded > 0 && nearest(delta, -1, crowded) > closest) {
+			answers.remove(kept.get(crowded));
+			answers.add(model);
+			deltas.set(crowded, delta);
+			kept.set(crowded, model);
+		}
+	}
+
+	private double nearest(BitSet delta, int self, int skip) {
+		double result = 1.0;
+		for (int i = 0; i < deltas.size(); i++)
+			if (i != self && i != skip)
+				result = Math.min(result, distance(delta, deltas.get(i)));
+		return result;
+	}
+
 	public Map.Entry<Values, Collection<Collection<String>>> parse() {
 		this.answers = new HashSet<>();
 		try {
@@ -87,15 +163,20 @@ public class Acquirer {
 //		if (FOUND.equals(token) || OPTIMIZATION.equals(token) || OPTIMUM.equals(token) || SATISFIABLE.equals(token) || UNKNOWN.equals(token)
 //				|| UNSATISFIABLE.equals(token))
 //			throw new ParserErrorException(String.format("expected ATOM but '%s' found", token));
-		this.atoms = new HashSet<>();
+		this.atoms = new BitSet();
 		while (null != token && !FOUND.equals(token) && !OPTIMIZATION.equals(token) && !OPTIMUM.equals(token) && !SATISFIABLE.equals(token)
 				&& !UNKNOWN.equals(token) && !UNSATISFIABLE.equals(token)) {
-			atoms.add(token);
+			if (!token.startsWith(HEURISTIC)) {
+				int atom = dictionary.put(token);
+				atoms.set(atom);
+				if (token.startsWith(ABDUCED))
+					abduced.set(atom);
+			}
 			token = tokeniser.next();
 		}
 		if (SATISFIABLE.equals(token)) {
 			parseSATISFIABLE();
-			answers.add(atoms);
+			keep(atoms);
 		} else {
 			parseOPTIMIZATION();
 			parseValues();
@@ -121,10 +202,15 @@ public class Acquirer {
 //		if (FOUND.equals(token) || OPTIMIZATION.equals(token) || OPTIMUM.equals(token) || SATISFIABLE.equals(token) || UNKNOWN.equals(token)
 //				|| UNSATISFIABLE.equals(token))
 //			throw new ParserErrorException(String.format("expected ATOM but '%s' found", token));
-		this.atoms = new HashSet<>();
+		this.atoms = new BitSet();
 		while (null != token && !FOUND.equals(token) && !OPTIMIZATION.equals(token) && !OPTIMUM.equals(token) && !SATISFIABLE.equals(token)
 				&& !UNKNOWN.equals(token) && !UNSATISFIABLE.equals(token)) {
-			atoms.add(token);
+			if (!token.startsWith(HEURISTIC)) {
+				int atom = dictionary.put(token);
+				atoms.set(atom);
+				if (token.startsWith(ABDUCED))
+					abduced.set(atom);
+			}
 			token = tokeniser.next();
 		}
 		parseOPTIMIZATION();
@@ -187,10 +273,12 @@ public class Acquirer {
 		int order = found.compareTo(this.values);
 		if (order < 0) {
 			answers.clear();
+			deltas.clear();
+			kept.clear();
 			this.values = found;
 		}
 		if (order <= 0)
-			answers.add(atoms);
+			keep(atoms);
 		if (OPTIMUM.equals(token)) {
 			parseOPTIMUM();
 			parseFOUND();
@@ -199,4 +287,13 @@ public class Acquirer {
 		}
 	}
 
+	/**
+	 * Keeps at most the given number of diverse models, or all of them if it
+	 * is not positive.
+	 */
+	public Acquirer setSample(int sample) {
+		this.sample = sample;
+		return this;
+	}
+
 }
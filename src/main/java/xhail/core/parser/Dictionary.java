@@ -0,0 +1,63 @@
+/**
+ * 
+ */
+package xhail.core.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xhail.core.terms.Atom;
+
+/**
+ * Symbol table of the atoms printed by a single solver call: every distinct
+ * atom gets a dense identifier and is parsed at most once, however many
+ * models it appears in.
+ * 
+ * @author stefano
+ *
+ */
+public class Dictionary {
+
+	private final List<Atom> atoms = new ArrayList<>();
+
+	private final Map<String, Integer> identifiers = new HashMap<>();
+
+	private final List<String> tokens = new ArrayList<>();
+
+	public final Atom getAtom(int identifier) {
+		if (identifier < 0 || identifier >= tokens.size())
+			throw new IllegalArgumentException("Illegal 'identifier' argument in Dictionary.getAtom(int): " + identifier);
+		Atom result = atoms.get(identifier);
+		if (null == result) {
+			result = Parser.parseToken(tokens.get(identifier));
+			atoms.set(identifier, result);
+		}
+		return result;
+	}
+
+	public final String getToken(int identifier) {
+		if (identifier < 0 || identifier >= tokens.size())
+			throw new IllegalArgumentException("Illegal 'identifier' argument in Dictionary.getToken(int): " + identifier);
+		return tokens.get(identifier);
+	}
+
+	public final int put(String token) {
+		if (null == token)
+			throw new IllegalArgumentException("Illegal 'token' argument in Dictionary.put(String): " + token);
+		Integer result = identifiers.get(token);
+		if (null == result) {
+			result = tokens.size();
+			identifiers.put(token, result);
+			tokens.add(token);
+			atoms.add(null);
+		}
+		return result;
+	}
+
+	public final int size() {
+		return tokens.size();
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ * 
+ */
+package xhail.core.parser;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import xhail.core.terms.Atom;
+
+/**
+ * A model printed by the solver, stored as the set of identifiers of its
+ * atoms in the {@link Dictionary} of the call.
+ * 
+ * @author stefano
+ *
+ */
+public class Model extends AbstractCollection<String> {
+
+	private final BitSet atoms;
+
+	private final Dictionary dictionary;
+
+	private final int size;
+
+	public Model(Dictionary dictionary, BitSet atoms) {
+		if (null == dictionary)
+			throw new IllegalArgumentException("Illegal 'dictionary' argument in Model(Dictionary, BitSet): " + dictionary);
+		if (null == atoms)
+			throw new IllegalArgumentException("Illegal 'atoms' argument in Model(Dictionary, BitSet): " + atoms);
+		this.atoms = atoms;
+		this.dictionary = dictionary;
+		this.size = atoms.cardinality();
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		if (!(object instanceof String))
+			return false;
+		for (int i = atoms.nextSetBit(0); i >= 0; i = atoms.nextSetBit(i + 1))
+			if (dictionary.getToken(i).equals(object))
+				return true;
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Model other = (Model) obj;
+		return dictionary == other.dictionary && atoms.equals(other.atoms);
+	}
+
+	public final Collection<Atom> getAtoms() {
+		Collection<Atom> result = new ArrayList<>(size);
+		for (int i = atoms.nextSetBit(0); i >= 0; i = atoms.nextSetBit(i + 1))
+			result.add(dictionary.getAtom(i));
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		return atoms.hashCode();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+
+			private int next = atoms.nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public String next() {
+				if (next < 0)
+					throw new NoSuchElementException();
+				String result = dictionary.getToken(next);
+				next = atoms.nextSetBit(next + 1);
+				return result;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the model made of the atoms in both this model and another
+	 * one printed by the same call, or <code>null</code> if the other model
+	 * comes from a different call.
+	 */
+	public final Model retain(Model other) {
+		if (null == other)
+			throw new IllegalArgumentException("Illegal 'other' argument in Model.retain(Model): " + other);
+		if (dictionary != other.dictionary)
+			return null;
+		BitSet result = (BitSet) atoms.clone();
+		result.and(other.atoms);
+		return new Model(dictionary, result);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
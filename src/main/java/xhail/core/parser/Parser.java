@@ -5,7 +5,6 @@ package xhail.core.parser;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 
 import xhail.core.Logger;
@@ -37,35 +36,11 @@ public class Parser {
 		}
 	}
 
-	public static class StringIterator implements Iterator<Character> {
-		private int pos = -1;
-		private final String source;
-
-		public StringIterator(String source) {
-			this.source = source;
-		}
-
-		@Override
-		public boolean hasNext() {
-			return null == source ? false : source.length() > 1 + pos;
-		}
-
-		@Override
-		public Character next() {
-			return hasNext() ? source.charAt(++pos) : null;
-		}
-
-		public void pushBack() {
-			if (pos > -1)
-				pos -= 1;
-		}
-	}
-
 	public static Collection<Atom> parseAnswer(String source) {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseAnswer(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			Collection<Atom> result = parser.parseAnswer();
 			parser.parseEOF();
 			return result;
@@ -75,11 +50,25 @@ public class Parser {
 		}
 	}
 
+	public static Atom parseAtom(String source) {
+		if (null == source)
+			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseAtom(String): " + source);
+		try {
+			Parser parser = PARSERS.get().reset(source);
+			Atom result = parser.parseAtom();
+			parser.parseEOF();
+			return result;
+		} catch (ParserErrorException e) {
+			Logger.error(e.getMessage());
+			return null;
+		}
+	}
+
 	public static Display parseDisplay(String source) {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseDisplay(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			Display result = parser.parseDisplay();
 			parser.parseEOF();
 			return result;
@@ -93,7 +82,7 @@ public class Parser {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseExample(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			Example result = parser.parseExample();
 			parser.parseEOF();
 			return result;
@@ -107,7 +96,7 @@ public class Parser {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseToken(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			Atom result = parser.parseGroundAtom();
 			parser.parseEOF();
 			return result;
@@ -121,7 +110,7 @@ public class Parser {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseModeB(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			ModeB result = parser.parseModeB();
 			parser.parseEOF();
 			return result;
@@ -135,7 +124,7 @@ public class Parser {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.parseModeH(String): " + source);
 		try {
-			Parser parser = new Parser(source);
+			Parser parser = PARSERS.get().reset(source);
 			ModeH result = parser.parseModeH();
 			parser.parseEOF();
 			return result;
@@ -145,28 +134,44 @@ public class Parser {
 		}
 	}
 
-	private Character current;
+	private static final int EOF = -1;
+
+	private static final ThreadLocal<Parser> PARSERS = ThreadLocal.withInitial(() -> new Parser(""));
 
-	private final Iterator<Character> iterator;
+	private int current;
 
-	private final String source;
+	private int length;
+
+	private int position;
+
+	private CharSequence source;
 
 	public Parser(String source) {
 		if (null == source)
 			throw new IllegalArgumentException("Illegal 'source' argument in Parser.Parser(String): " + source);
-		this.source = source;
-		this.iterator = new StringIterator(this.source);
-		this.current = this.iterator.next();
+		reset(source);
 	}
 
 	public final String getSource() {
-		return source;
+		return source.toString();
+	}
+
+	private void next() {
+		current = ++position < length ? source.charAt(position) : EOF;
+	}
+
+	private Parser reset(CharSequence source) {
+		this.source = source;
+		this.length = source.length();
+		this.position = 0;
+		this.current = length > 0 ? source.charAt(0) : EOF;
+		return this;
 	}
 
 	private Set<Atom> parseAnswer() throws ParserErrorException {
 		skip();
 		Set<Atom> result = new HashSet<>();
-		while (null != current && Character.isLowerCase(current)) {
+		while (EOF != current && Character.isLowerCase(current)) {
 			result.add(parseGroundAtom());
 			skip();
 		}
@@ -175,21 +180,21 @@ public class Parser {
 
 	private void parseAt() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '@' but EOF found in '" + source + "'");
 		if ('@' != current)
-			throw new ParserErrorException("expected '@' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected '@' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private Atom parseAtom() throws ParserErrorException {
 		Atom.Builder result = new Atom.Builder(parseIdentifier());
 		skip();
-		if (null != current && '(' == current) {
+		if (EOF != current && '(' == current) {
 			parseLeftParen();
 			result.addTerm(parseTerm());
 			skip();
-			while (null != current && ',' == current) {
+			while (EOF != current && ',' == current) {
 				parseComma();
 				result.addTerm(parseTerm());
 				skip();
@@ -201,55 +206,55 @@ public class Parser {
 
 	private void parseColon() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected ':' but EOF found in '" + source + "'");
 		if (':' != current)
-			throw new ParserErrorException("expected ':' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected ':' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private void parseComma() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected ',' but EOF found in '" + source + "'");
 		if (',' != current)
-			throw new ParserErrorException("expected ',' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected ',' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private void parseDash() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '-' but EOF found in '" + source + "'");
 		if ('-' != current)
-			throw new ParserErrorException("expected '-' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected '-' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private Display parseDisplay() throws ParserErrorException {
 		String identifier = parseIdentifier();
 		parseSlash();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '0..9' but EOF found in '" + source + "'");
 		if (!Character.isDigit(current))
-			throw new ParserErrorException("expected '0..9' but '" + current + "' found in '" + source + "'");
+			throw new ParserErrorException("expected '0..9' but '" + (char) current + "' found in '" + source + "'");
 		Number number = parseNumber();
 		return new Display.Builder(identifier).setArity(number.getValue()).build();
 	}
 
 	private void parseEOF() throws ParserErrorException {
 		skip();
-		if (null != current)
-			throw new ParserErrorException("expected EOF but '" + current + "' found in '" + source + "'");
+		if (EOF != current)
+			throw new ParserErrorException("expected EOF but '" + (char) current + "' found in '" + source + "'");
 	}
 
 	private void parseEqual() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '=' but EOF found in '" + source + "'");
 		if ('=' != current)
-			throw new ParserErrorException("expected '=' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected '=' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private Example parseExample() throws ParserErrorException {
@@ -258,11 +263,11 @@ public class Parser {
 		if (negated)
 			atom = parseGroundAtom();
 		Example.Builder result = new Example.Builder(atom).setNegated(negated);
-		if (null != current && '=' == current) {
+		if (EOF != current && '=' == current) {
 			parseEqual();
 			result.setWeight(parseNumber().getValue());
 		}
-		if (null != current && '@' == current) {
+		if (EOF != current && '@' == current) {
 			parseAt();
 			result.setPriority(parseNumber().getValue());
 		}
@@ -272,11 +277,11 @@ public class Parser {
 	private Atom parseGroundAtom() throws ParserErrorException {
 		Atom.Builder result = new Atom.Builder(parseIdentifier());
 		skip();
-		if (null != current && '(' == current) {
+		if (EOF != current && '(' == current) {
 			parseLeftParen();
 			result.addTerm(parseGroundTerm());
 			skip();
-			while (null != current && ',' == current) {
+			while (EOF != current && ',' == current) {
 				parseComma();
 				result.addTerm(parseGroundTerm());
 				skip();
@@ -288,7 +293,7 @@ public class Parser {
 
 	private Term parseGroundTerm() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'TERM' but EOF found in '" + source + "'");
 		if (Character.isLowerCase(current))
 			return parseAtom();
@@ -296,30 +301,28 @@ public class Parser {
 			return parseNumber();
 		if ('\"' == current)
 			return parseQuotation();
-		throw new ParserErrorException("expected 'TERM' but '" + current + "' found in '" + source + "'");
+		throw new ParserErrorException("expected 'TERM' but '" + (char) current + "' found in '" + source + "'");
 	}
 
 	private String parseIdentifier() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'a..z' but EOF found in '" + source + "'");
 		if (!Character.isLowerCase(current))
-			throw new ParserErrorException("expected 'a..z' but '" + current + "' found in '" + source + "'");
-		String result = "";
-		while (null != current && (Character.isLowerCase(current) || Character.isUpperCase(current) || Character.isDigit(current) || '_' == current)) {
-			result += current;
-			current = iterator.next();
-		}
-		return result;
+			throw new ParserErrorException("expected 'a..z' but '" + (char) current + "' found in '" + source + "'");
+		int start = position;
+		while (EOF != current && (Character.isLowerCase(current) || Character.isUpperCase(current) || Character.isDigit(current) || '_' == current))
+			next();
+		return source.subSequence(start, position).toString();
 	}
 
 	private void parseLeftParen() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '(' but EOF found in '" + source + "'");
 		if ('(' != current)
-			throw new ParserErrorException("expected '(' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected '(' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private ModeB parseModeB() throws ParserErrorException {
@@ -328,15 +331,15 @@ public class Parser {
 		if (negated)
 			scheme = parseScheme();
 		ModeB.Builder result = new ModeB.Builder(scheme).setNegated(negated);
-		if (null != current && ':' == current) {
+		if (EOF != current && ':' == current) {
 			parseColon();
 			result.setUpper(parseNumber().getValue());
 		}
-		if (null != current && '=' == current) {
+		if (EOF != current && '=' == current) {
 			parseEqual();
 			result.setWeight(parseNumber().getValue());
 		}
-		if (null != current && '@' == current) {
+		if (EOF != current && '@' == current) {
 			parseAt();
 			result.setPriority(parseNumber().getValue());
 		}
@@ -345,21 +348,21 @@ public class Parser {
 
 	private ModeH parseModeH() throws ParserErrorException {
 		ModeH.Builder result = new ModeH.Builder(parseScheme());
-		if (null != current && ':' == current) {
+		if (EOF != current && ':' == current) {
 			parseColon();
 			int value = parseNumber().getValue();
-			if (null != current && '-' == current) {
+			if (EOF != current && '-' == current) {
 				result.setLower(value);
 				parseDash();
 				result.setUpper(parseNumber().getValue());
 			} else
 				result.setUpper(value);
 		}
-		if (null != current && '=' == current) {
+		if (EOF != current && '=' == current) {
 			parseEqual();
 			result.setWeight(parseNumber().getValue());
 		}
-		if (null != current && '@' == current) {
+		if (EOF != current && '@' == current) {
 			parseAt();
 			result.setPriority(parseNumber().getValue());
 		}
@@ -368,81 +371,78 @@ public class Parser {
 
 	private Number parseNumber() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '-' or '0..9' but EOF found in '" + source + "'");
 		boolean negative;
 		if (negative = (current == '-')) {
-			current = iterator.next();
+			next();
 			skip();
 		}
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '0..9' but EOF found in '" + source + "'");
 		if (!Character.isDigit(current))
-			throw new ParserErrorException("expected '0..9' but '" + current + "' found in '" + source + "'");
+			throw new ParserErrorException("expected '0..9' but '" + (char) current + "' found in '" + source + "'");
 		int result = (current - '0');
-		current = iterator.next();
-		while (null != current && Character.isDigit(current)) {
+		next();
+		while (EOF != current && Character.isDigit(current)) {
 			result = 10 * result + (current - '0');
-			current = iterator.next();
+			next();
 		}
 		return new Number.Builder(negative ? -result : result).build();
 	}
 
 	private Placemarker parsePlacemarker() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'TERM' but EOF found in '" + source + "'");
 		Type type;
 		if ('+' == current) {
 			type = Type.INPUT;
-			current = iterator.next();
+			next();
 		} else if ('-' == current) {
 			type = Type.OUTPUT;
-			current = iterator.next();
+			next();
 		} else if ('$' == current) {
 			type = Type.CONSTANT;
-			current = iterator.next();
+			next();
 		} else
-			throw new ParserErrorException("expected '+', '-' or '$' but '" + current + "' found in '" + source + "'");
+			throw new ParserErrorException("expected '+', '-' or '$' but '" + (char) current + "' found in '" + source + "'");
 		return new Placemarker.Builder(parseIdentifier()).setType(type).build();
 	}
 
 	private Quotation parseQuotation() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '\"' but EOF found in '" + source + "'");
 		if ('\"' != current)
-			throw new ParserErrorException("expected '\"' but '" + current + "' found in '" + source + "'");
-		String result = "" + current;
-		current = iterator.next();
-		while (null != current && '\"' != current) {
-			result += current;
-			current = iterator.next();
-		}
-		if (null == current)
+			throw new ParserErrorException("expected '\"' but '" + (char) current + "' found in '" + source + "'");
+		int start = position;
+		next();
+		while (EOF != current && '\"' != current)
+			next();
+		if (EOF == current)
 			throw new ParserErrorException("expected '\"' but EOF found in '" + source + "'");
-		result += current;
-		current = iterator.next();
-		return new Quotation.Builder(result).build();
+		next();
+		return new Quotation.Builder(source.subSequence(start, position).toString()).build();
 	}
 
 	private void parseRightParen() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected ')' but EOF found in '" + source + "'");
 		if (')' != current)
-			throw new ParserErrorException("expected ')' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected ')' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private Scheme parseScheme() throws ParserErrorException {
 		Scheme.Builder result = new Scheme.Builder(parseIdentifier());
 		skip();
-		if (null != current && '(' == current) {
+		if (EOF != current && '(' == current) {
 			parseLeftParen();
 			result.addTerm(parseSchemeTerm());
 			skip();
-			while (null != current && ',' == current) {
+			while (EOF != current && ',' == current) {
 				parseComma();
 				result.addTerm(parseSchemeTerm());
 				skip();
@@ -454,7 +454,7 @@ public class Parser {
 
 	private SchemeTerm parseSchemeTerm() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'SCHEMETERM' but EOF found in '" + source + "'");
 		if (Character.isLowerCase(current))
 			return parseScheme();
@@ -464,21 +464,21 @@ public class Parser {
 			return parseNumber();
 		if ('\"' == current)
 			return parseQuotation();
-		throw new ParserErrorException("expected 'SCHEMETERM' but '" + current + "' found in '" + source + "'");
+		throw new ParserErrorException("expected 'SCHEMETERM' but '" + (char) current + "' found in '" + source + "'");
 	}
 
 	private void parseSlash() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected '/' but EOF found in '" + source + "'");
 		if ('/' != current)
-			throw new ParserErrorException("expected '/' but '" + current + "' found in '" + source + "'");
-		current = iterator.next();
+			throw new ParserErrorException("expected '/' but '" + (char) current + "' found in '" + source + "'");
+		next();
 	}
 
 	private Term parseTerm() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'TERM' but EOF found in '" + source + "'");
 		if (Character.isLowerCase(current))
 			return parseAtom();
@@ -488,26 +488,24 @@ public class Parser {
 			return parseNumber();
 		if ('\"' == current)
 			return parseQuotation();
-		throw new ParserErrorException("expected 'TERM' but '" + current + "' found in '" + source + "'");
+		throw new ParserErrorException("expected 'TERM' but '" + (char) current + "' found in '" + source + "'");
 	}
 
 	private Variable parseVariable() throws ParserErrorException {
 		skip();
-		if (null == current)
+		if (EOF == current)
 			throw new ParserErrorException("expected 'A..Z' or '_' but EOF found in '" + source + "'");
 		if (!Character.isUpperCase(current) && '_' != current)
-			throw new ParserErrorException("expected 'A..Z' or '_' but '" + current + "' found in '" + source + "'");
-		String result = "";
-		while (null != current && (Character.isLowerCase(current) || Character.isUpperCase(current) || Character.isDigit(current) || '_' == current)) {
-			result += current;
-			current = iterator.next();
-		}
-		return new Variable.Builder(result).build();
+			throw new ParserErrorException("expected 'A..Z' or '_' but '" + (char) current + "' found in '" + source + "'");
+		int start = position;
+		while (EOF != current && (Character.isLowerCase(current) || Character.isUpperCase(current) || Character.isDigit(current) || '_' == current))
+			next();
+		return new Variable.Builder(source.subSequence(start, position).toString()).build();
 	}
 
 	private void skip() {
-		while (null != current && current <= ' ')
-			current = iterator.next();
+		while (EOF != current && current <= ' ')
+			next();
 	}
 
 }
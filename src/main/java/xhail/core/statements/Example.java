@@ -4,6 +4,7 @@
 package xhail.core.statements;
 
 import xhail.core.Buildable;
+import xhail.core.Emitter;
 import xhail.core.terms.Atom;
 
 /**
@@ -104,6 +105,8 @@ public class Example {
 
 	private final boolean negated;
 
+	private volatile String[] clauses;
+
 	private Example(Builder builder) {
 		if (null == builder)
 			throw new IllegalArgumentException("Illegal 'builder' argument in Penguins(Penguins.Builder): " + builder);
@@ -168,17 +171,27 @@ public class Example {
 	}
 
 	public final String[] asClauses() {
-		String yes = negated ? "not " : "";
-		String not = negated ? "" : "not ";
-//		String bool = negated ? "true" : "false";
-		String[] result = new String[defeasible ? 2 : 3];
-		result[0] = String.format("%% %s", toString());
-		result[1] = String.format("#maximize[ %s%s =%d @%d ].", yes, atom, weight, priority);
-		if (!defeasible)
-			result[2] = String.format(":-%s%s.", not, atom);
-//		result[result.length - 2] = String.format("covered_example(%s,%s):-%s%s.", bool, atom, yes, atom);
-//		result[result.length - 1] = String.format("uncovered_example(%s,%s):-%s%s.", bool, atom, not, atom);
-		return result;
+		if (null == clauses) {
+			String yes = negated ? "not " : "";
+			String not = negated ? "" : "not ";
+//			String bool = negated ? "true" : "false";
+			String[] result = new String[defeasible ? 2 : 3];
+			result[0] = String.format("%% %s", toString());
+			result[1] = String.format("#maximize[ %s%s =%d @%d ].", yes, atom, weight, priority);
+			if (!defeasible)
+				result[2] = String.format(":-%s%s.", not, atom);
+//			result[result.length - 2] = String.format("covered_example(%s,%s):-%s%s.", bool, atom, yes, atom);
+//			result[result.length - 1] = String.format("uncovered_example(%s,%s):-%s%s.", bool, atom, not, atom);
+			clauses = result;
+		}
+		return clauses;
+	}
+
+	public final void asClauses(Emitter emitter) {
+		if (null == emitter)
+			throw new IllegalArgumentException("Illegal 'emitter' argument in Example.asClauses(Emitter): " + emitter);
+		for (String clause : asClauses())
+			emitter.println(clause);
 	}
 
 	public boolean isNegated() {
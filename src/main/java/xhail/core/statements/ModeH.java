@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import xhail.core.Buildable;
+import xhail.core.Emitter;
 import xhail.core.terms.Atom;
 import xhail.core.terms.Scheme;
 import xhail.core.terms.Variable;
@@ -89,6 +90,8 @@ public class ModeH {
 	
 	private final int id;
 
+	private volatile String[] clauses;
+
 	private ModeH(Builder builder, int id) {
 		this.id = id;
 		this.lower = builder.lower;
@@ -99,17 +102,46 @@ public class ModeH {
 	}
 
 	public final String[] asClauses() {
+		if (null == clauses) {
+			Set<Variable> vars = new HashSet<>();
+			String atom = ((Atom) scheme.generalises(vars)).toString();
+			String types = scheme.getTypes().length > 0 ? " :" + String.join(" :", scheme.getTypes()) : "";
+			String list = scheme.getTypes().length > 0 ? "," + String.join(",", scheme.getTypes()) : "";
+			String[] result = new String[5];
+			result[0] = String.format("%% %s", toString());
+			result[1] = String.format("%d { abduced_%s%s } %d.", lower, atom, types, upper);
+			result[2] = String.format("#minimize[ abduced_%s =%d @%d%s ].", atom, weight, priority, types);
+			result[3] = String.format("%s:-abduced_%s%s.", atom, atom, list);
+			result[4] = String.format("number_abduced(%d,V):-V:=#count{ abduced_%s%s }.", id, atom, types);
+			clauses = result;
+		}
+		return clauses;
+	}
+
+	/**
+	 * Returns the domain heuristic making <code>clasp</code> decide the
+	 * abduced atoms of this mode first and to false, so that small deltas are
+	 * tried before large ones.
+	 */
+	public final String asHeuristic() {
 		Set<Variable> vars = new HashSet<>();
 		String atom = ((Atom) scheme.generalises(vars)).toString();
-		String types = scheme.getTypes().length > 0 ? " :" + String.join(" :", scheme.getTypes()) : "";
-		String list = scheme.getTypes().length > 0 ? "," + String.join(",", scheme.getTypes()) : "";
-		String[] result = new String[5];
-		result[0] = String.format("%% %s", toString());
-		result[1] = String.format("%d { abduced_%s%s } %d.", lower, atom, types, upper);
-		result[2] = String.format("#minimize[ abduced_%s =%d @%d%s ].", atom, weight, priority, types);
-		result[3] = String.format("%s:-abduced_%s%s.", atom, atom, list);
-		result[4] = String.format("number_abduced(%d,V):-V:=#count{ abduced_%s%s }.", id, atom, types);
-		return result;
+		String list = scheme.getTypes().length > 0 ? ":-" + String.join(",", scheme.getTypes()) : "";
+		return String.format("_heuristic(abduced_%s,false,1)%s.", atom, list);
+	}
+
+	/**
+	 * Streams the abductive clauses of this mode, leaving out the
+	 * <code>number_abduced/2</code> counter unless <code>counted</code>.
+	 */
+	public final void asClauses(Emitter emitter, boolean counted) {
+		if (null == emitter)
+			throw new IllegalArgumentException("Illegal 'emitter' argument in ModeH.asClauses(Emitter, boolean): " + emitter);
+		String[] clauses = asClauses();
+		for (int i = 0; i < clauses.length - 1; i++)
+			emitter.println(clauses[i]);
+		if (counted)
+			emitter.println(clauses[clauses.length - 1]);
 	}
 
 	@Override
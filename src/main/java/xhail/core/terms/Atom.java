@@ -352,7 +352,7 @@ public class Atom implements Term, Iterable<Atom>, Comparable<Atom> {
 				((Atom) term).getVariables(result);
 	}
 
-	private Variable[] variables;
+	private volatile Variable[] variables;
 
 	public final boolean hasVariables() {
 		return getVariables().length > 0;
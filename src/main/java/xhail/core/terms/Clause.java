@@ -3,10 +3,15 @@
  */
 package xhail.core.terms;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections4.iterators.ArrayIterator;
@@ -81,6 +86,42 @@ public class Clause implements Iterable<Literal> {
 		this.head = builder.head;
 	}
 
+	/**
+	 * Returns this clause as a safe rule, where every variable is guarded by
+	 * the type of its placemarker unless the body already has that literal:
+	 * hypotheses only carry the types of their body variables.
+	 */
+	public String asGuarded() {
+		Set<Variable> variables = new LinkedHashSet<>();
+		Set<Atom> guards = new HashSet<>();
+		if (null != head)
+			variables.addAll(Arrays.asList(head.getVariables()));
+		for (Literal literal : body) {
+			variables.addAll(Arrays.asList(literal.getVariables()));
+			if (!literal.isNegated())
+				guards.add(literal.getAtom());
+		}
+		StringBuilder builder = new StringBuilder();
+		if (null != head)
+			builder.append(head);
+		String separator = ":-";
+		for (Literal literal : body) {
+			builder.append(separator).append(literal);
+			separator = ",";
+		}
+		for (Variable variable : variables)
+			if (null != variable.getType()) {
+				Atom type = new Atom.Builder(variable.getType().getIdentifier()).addTerm(variable).build();
+				if (!guards.contains(type)) {
+					builder.append(separator).append(type);
+					separator = ",";
+				}
+			}
+		if (null == head && body.length == 0)
+			builder.append(separator);
+		return builder.append('.').toString();
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -132,6 +173,123 @@ public class Clause implements Iterable<Literal> {
 		return new ArrayIterator<>(body);
 	}
 
+	/**
+	 * Returns whether this clause equals another one up to a renaming of its
+	 * variables and the order of its body.
+	 */
+	public boolean isVariant(Clause other) {
+		if (null == other)
+			throw new IllegalArgumentException("Illegal 'other' argument in Clause.isVariant(Clause): " + other);
+		if (body.length != other.body.length)
+			return false;
+		Map<Variable, Variable> map = new HashMap<>();
+		if (null == head ? null != other.head : null == other.head || !renames(head, other.head, null, map))
+			return false;
+		String[] keys = new String[body.length];
+		String[] others = new String[body.length];
+		for (int i = 0; i < body.length; i++) {
+			keys[i] = key(body[i]);
+			others[i] = key(other.body[i]);
+		}
+		return isVariant(0, keys, other, others, new boolean[body.length], map);
+	}
+
+	private boolean isVariant(int index, String[] keys, Clause other, String[] others, boolean[] used, Map<Variable, Variable> map) {
+		if (index == body.length)
+			return true;
+		for (int i = 0; i < others.length; i++)
+			if (!used[i] && keys[index].equals(others[i])) {
+				Map<Variable, Variable> extended = new HashMap<>(map);
+				if (renames(body[index].getAtom(), other.body[i].getAtom(), null, extended)) {
+					used[i] = true;
+					if (isVariant(1 + index, keys, other, others, used, extended))
+						return true;
+					used[i] = false;
+				}
+			}
+		return false;
+	}
+
+	private static String key(Literal literal) {
+		Atom atom = literal.getAtom();
+		return (literal.isNegated() ? "-" : "+") + atom.getIdentifier() + "/" + atom.getArity() + "/" + literal.getLevel() + "/" + literal.getWeight() + "@"
+				+ literal.getPriority();
+	}
+
+	/**
+	 * Returns this clause without the body literals that are renamings of an
+	 * earlier literal of the same mode and level, where only the variables
+	 * occurring in no other literal nor in the head are renamed: any subset
+	 * of the body using such a literal has an equivalent subset using the
+	 * earlier one instead, at the same cost.
+	 */
+	public Clause reduce() {
+		Map<Variable, Integer> occurrences = new HashMap<>();
+		for (Literal literal : body)
+			for (Variable variable : literal.getVariables())
+				occurrences.merge(variable, 1, Integer::sum);
+		Set<Variable> locals = new HashSet<>();
+		for (Map.Entry<Variable, Integer> entry : occurrences.entrySet())
+			if (1 == entry.getValue())
+				locals.add(entry.getKey());
+		if (null != head)
+			locals.removeAll(Arrays.asList(head.getVariables()));
+		if (locals.isEmpty())
+			return this;
+		Builder builder = new Builder().setHead(head);
+		Map<String, List<Literal>> index = new HashMap<>();
+		boolean reduced = false;
+		for (Literal literal : body) {
+			List<Literal> kept = index.computeIfAbsent(key(literal), k -> new ArrayList<>());
+			boolean redundant = false;
+			for (Literal other : kept)
+				if (renames(literal.getAtom(), other.getAtom(), locals, new HashMap<>())) {
+					redundant = true;
+					break;
+				}
+			if (redundant)
+				reduced = true;
+			else {
+				kept.add(literal);
+				builder.addLiteral(literal);
+			}
+		}
+		return reduced ? builder.build() : this;
+	}
+
+	/**
+	 * Returns whether a term becomes the target by an injective renaming of
+	 * its free variables into free variables of the same type, extending the
+	 * given map; all the variables are free if <code>locals</code> is
+	 * <code>null</code>.
+	 */
+	private static boolean renames(Term term, Term target, Set<Variable> locals, Map<Variable, Variable> map) {
+		if (term instanceof Variable && target instanceof Variable) {
+			Variable variable = (Variable) term;
+			Variable other = (Variable) target;
+			if (null != locals && (!locals.contains(variable) || !locals.contains(other)))
+				return variable.equals(other);
+			Variable bound = map.get(variable);
+			if (null != bound)
+				return bound.equals(other);
+			if (!variable.getType().equals(other.getType()) || map.containsValue(other))
+				return false;
+			map.put(variable, other);
+			return true;
+		}
+		if (term instanceof Atom && target instanceof Atom) {
+			Atom atom = (Atom) term;
+			Atom other = (Atom) target;
+			if (atom.getArity() != other.getArity() || !atom.getIdentifier().equals(other.getIdentifier()))
+				return false;
+			for (int i = 0; i < atom.getArity(); i++)
+				if (!renames(atom.getTerm(i), other.getTerm(i), locals, map))
+					return false;
+			return true;
+		}
+		return term.equals(target);
+	}
+
 	public int getLevels() {
 		int result = 0;
 		for (Literal literal : body) {
@@ -0,0 +1,312 @@
+/**
+ *
+ */
+package xhail.core.terms;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import xhail.core.terms.Placemarker.Type;
+
+/**
+ * Compiled form of a {@link Scheme}: the positions of its constants,
+ * placemarkers and nested schemes are sorted out once, so that matching an
+ * atom runs a few loops over arrays instead of dispatching on the type of
+ * every argument.
+ *
+ * @author stefano
+ *
+ */
+public final class Matcher {
+
+	private static final byte CONSTANT = 0;
+
+	private static final byte INPUT = 1;
+
+	private static final byte INVALID = 4;
+
+	private static final byte NESTED = 3;
+
+	private static final byte OTHER = 2;
+
+	private final int arity;
+
+	private final Matcher[] children;
+
+	private final int[] constants;
+
+	private final String identifier;
+
+	private final int[] inputs;
+
+	private final byte[] kinds;
+
+	private final int[] nested;
+
+	private final int[] outputs;
+
+	private final int[] placemarkers;
+
+	private final int probe;
+
+	private final SchemeTerm[] terms;
+
+	private final boolean valid;
+
+	Matcher(Scheme scheme) {
+		if (null == scheme)
+			throw new IllegalArgumentException("Illegal 'scheme' argument in Matcher(Scheme): " + scheme);
+		this.identifier = scheme.getIdentifier();
+		this.terms = scheme.getTerms();
+		this.arity = terms.length;
+		this.kinds = new byte[arity];
+		List<Integer> constants = new ArrayList<>();
+		List<Integer> inputs = new ArrayList<>();
+		List<Integer> outputs = new ArrayList<>();
+		List<Integer> placemarkers = new ArrayList<>();
+		List<Integer> nested = new ArrayList<>();
+		boolean valid = true;
+		for (int i = 0; i < arity; i++) {
+			SchemeTerm term = terms[i];
+			if (term instanceof Number || term instanceof Quotation) {
+				kinds[i] = CONSTANT;
+				constants.add(i);
+			} else if (term instanceof Placemarker) {
+				Type type = ((Placemarker) term).getType();
+				kinds[i] = Type.INPUT == type ? INPUT : OTHER;
+				placemarkers.add(i);
+				if (Type.INPUT == type)
+					inputs.add(i);
+				else if (Type.OUTPUT == type)
+					outputs.add(i);
+			} else if (term instanceof Scheme) {
+				kinds[i] = NESTED;
+				nested.add(i);
+			} else {
+				kinds[i] = INVALID;
+				valid = false;
+			}
+		}
+		this.constants = toArray(constants);
+		this.inputs = toArray(inputs);
+		this.outputs = toArray(outputs);
+		this.placemarkers = toArray(placemarkers);
+		this.nested = toArray(nested);
+		this.children = new Matcher[this.nested.length];
+		for (int k = 0; k < children.length; k++)
+			children[k] = ((Scheme) terms[this.nested[k]]).getMatcher();
+		this.probe = this.inputs.length > 0 ? this.inputs[0] : -1;
+		this.valid = valid;
+	}
+
+	/**
+	 * Returns whether an atom has the predicate, the arity and the constant
+	 * arguments of this scheme, and so can possibly match it.
+	 */
+	public boolean fits(Atom atom) {
+		if (!valid || atom.getArity() != arity || !atom.getIdentifier().equals(identifier))
+			return false;
+		for (int position : constants)
+			if (!terms[position].equals(atom.getTerm(position)))
+				return false;
+		return true;
+	}
+
+	private void generate(List<List<Map.Entry<Term, Collection<Term>>>> options, Term[] chosen, int index, List<Collection<Term>> collected,
+			Map<Atom, Collection<Term>> result) {
+		if (index == arity) {
+			Set<Term> output = new HashSet<>();
+			for (Collection<Term> part : collected)
+				output.addAll(part);
+			result.computeIfAbsent(new Atom.Builder(identifier).addTerms(chosen).build(), k -> new HashSet<>()).addAll(output);
+			return;
+		}
+		for (Map.Entry<Term, Collection<Term>> option : options.get(index)) {
+			chosen[index] = option.getKey();
+			collected.add(option.getValue());
+			generate(options, chosen, index + 1, collected, result);
+			collected.remove(collected.size() - 1);
+		}
+	}
+
+	/**
+	 * Returns the atoms built from this scheme by replacing input
+	 * placemarkers with the given substitutes and the other placemarkers
+	 * with the terms of their type, each with the terms at its output
+	 * placemarkers.
+	 */
+	public Map<Atom, Collection<Term>> generateAndOutput(Collection<Term> substitutes, Map<SchemeTerm, Set<Atom>> table) {
+		if (null == substitutes)
+			throw new IllegalArgumentException("Illegal 'substitutes' argument in Matcher.generateAndOutput(Collection<Term>, Map<SchemeTerm, Set<Atom>>): " + substitutes);
+		if (null == table)
+			throw new IllegalArgumentException("Illegal 'table' argument in Matcher.generateAndOutput(Collection<Term>, Map<SchemeTerm, Set<Atom>>): " + table);
+		List<List<Map.Entry<Term, Collection<Term>>>> options = new ArrayList<>(arity);
+		for (int i = 0; i < arity; i++) {
+			List<Map.Entry<Term, Collection<Term>>> option = new ArrayList<>();
+			switch (kinds[i]) {
+			case CONSTANT:
+				option.add(new SimpleEntry<>((Term) terms[i], Collections.emptySet()));
+				break;
+			case INPUT:
+				for (Term substitute : substitutes)
+					option.add(new SimpleEntry<>(substitute, Collections.emptySet()));
+				break;
+			case OTHER:
+				Placemarker placemarker = (Placemarker) terms[i];
+				boolean output = Type.OUTPUT == placemarker.getType();
+				for (Atom candidate : table.getOrDefault(placemarker, Collections.emptySet())) {
+					Term utilise = candidate.getIdentifier().equals(placemarker.getIdentifier()) && 1 == candidate.getArity() ? candidate.getTerm(0) : candidate;
+					option.add(new SimpleEntry<>(utilise, output ? Collections.singleton(utilise) : Collections.emptySet()));
+				}
+				break;
+			case NESTED:
+				for (Map.Entry<Atom, Collection<Term>> entry : ((Scheme) terms[i]).getMatcher().generateAndOutput(substitutes, table).entrySet())
+					option.add(new SimpleEntry<>(entry.getKey(), entry.getValue()));
+				break;
+			default:
+				return Collections.emptyMap();
+			}
+			options.add(option);
+		}
+		Map<Atom, Collection<Term>> result = new HashMap<>();
+		generate(options, new Term[arity], 0, new ArrayList<>(), result);
+		return result;
+	}
+
+	/**
+	 * Indexes some atoms by their term at the first input placemarker, or
+	 * returns <code>null</code> if this scheme has no input placemarker.
+	 */
+	public Map<Term, List<Atom>> index(Collection<Atom> atoms) {
+		if (null == atoms)
+			throw new IllegalArgumentException("Illegal 'atoms' argument in Matcher.index(Collection<Atom>): " + atoms);
+		if (probe < 0)
+			return null;
+		Map<Term, List<Atom>> result = new HashMap<>();
+		for (Atom atom : atoms)
+			if (atom.getArity() == arity)
+				result.computeIfAbsent(atom.getTerm(probe), k -> new ArrayList<>()).add(atom);
+		return result;
+	}
+
+	/**
+	 * Collects the terms at the input placemarkers of a candidate.
+	 */
+	public void inputs(Term candidate, Collection<Term> result) {
+		if (!(candidate instanceof Atom))
+			return;
+		Atom atom = (Atom) candidate;
+		if (atom.getArity() != arity || !atom.getIdentifier().equals(identifier))
+			return;
+		for (int position : inputs)
+			result.add(atom.getTerm(position));
+		for (int k = 0; k < nested.length; k++)
+			children[k].inputs(atom.getTerm(nested[k]), result);
+	}
+
+	public Collection<Term> matchAndOutput(Atom atom, Collection<Term> substitutes) {
+		if (!matches(atom, substitutes))
+			return null;
+		Set<Term> result = new HashSet<>();
+		outputs(atom, result);
+		return result;
+	}
+
+	/**
+	 * Returns the atoms matching this scheme whose inputs are among the
+	 * substitutes, with the terms at their outputs. When an index of the
+	 * atoms is given and there are fewer substitutes than atoms, only the
+	 * atoms indexed by a substitute are tried.
+	 */
+	public Map.Entry<Collection<Atom>, Collection<Term>> matchAndOutput(Collection<Atom> atoms, Map<Term, List<Atom>> index, Collection<Term> substitutes) {
+		if (null == atoms)
+			throw new IllegalArgumentException("Illegal 'atoms' argument in Matcher.matchAndOutput(Collection<Atom>, Map<Term, List<Atom>>, Collection<Term>): " + atoms);
+		if (null == substitutes)
+			throw new IllegalArgumentException(
+					"Illegal 'substitutes' argument in Matcher.matchAndOutput(Collection<Atom>, Map<Term, List<Atom>>, Collection<Term>): " + substitutes);
+		Set<Atom> matches = new HashSet<>();
+		Set<Term> outputs = new HashSet<>();
+		if (null != index && substitutes.size() < atoms.size()) {
+			for (Term substitute : substitutes)
+				for (Atom atom : index.getOrDefault(substitute, Collections.emptyList()))
+					if (matches(atom, substitutes)) {
+						matches.add(atom);
+						outputs(atom, outputs);
+					}
+		} else
+			for (Atom atom : atoms)
+				if (matches(atom, substitutes)) {
+					matches.add(atom);
+					outputs(atom, outputs);
+				}
+		return new SimpleEntry<Collection<Atom>, Collection<Term>>(matches, outputs);
+	}
+
+	/**
+	 * Returns whether an atom matches this scheme, with the terms at the
+	 * input placemarkers among the substitutes unless these are
+	 * <code>null</code>.
+	 */
+	public boolean matches(Atom atom, Collection<Term> substitutes) {
+		if (!fits(atom))
+			return false;
+		if (null != substitutes)
+			for (int position : inputs)
+				if (!substitutes.contains(atom.getTerm(position)))
+					return false;
+		for (int k = 0; k < nested.length; k++) {
+			Term term = atom.getTerm(nested[k]);
+			if (!(term instanceof Atom) || !children[k].matches((Atom) term, substitutes))
+				return false;
+		}
+		return true;
+	}
+
+	private void outputs(Atom atom, Collection<Term> result) {
+		for (int position : outputs)
+			result.add(atom.getTerm(position));
+		for (int k = 0; k < nested.length; k++)
+			children[k].outputs((Atom) atom.getTerm(nested[k]), result);
+	}
+
+	/**
+	 * Returns whether a term is an instance of this scheme whose arguments at
+	 * the placemarkers have the right types in the facts; as before, schemes
+	 * with constants subsume nothing.
+	 */
+	public boolean subsumes(Term term, Collection<Atom> facts) {
+		if (!valid || constants.length > 0 || !(term instanceof Atom))
+			return false;
+		Atom atom = (Atom) term;
+		if (atom.getArity() != arity || !atom.getIdentifier().equals(identifier))
+			return false;
+		for (int position : placemarkers) {
+			Term argument = atom.getTerm(position);
+			if (argument instanceof Variable)
+				return false;
+			String type = ((Placemarker) terms[position]).getIdentifier();
+			if (!facts.contains(new Atom.Builder(type).addTerm(argument).build())
+					&& !(argument instanceof Atom && 1 == ((Atom) argument).getArity() && ((Atom) argument).getIdentifier().equals(type)))
+				return false;
+		}
+		for (int k = 0; k < nested.length; k++)
+			if (!children[k].subsumes(atom.getTerm(nested[k]), facts))
+				return false;
+		return true;
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
+}
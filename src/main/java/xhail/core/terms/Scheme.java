@@ -91,6 +91,8 @@ public class Scheme implements SchemeTerm, Iterable<Scheme> {
 
 	private final String identifier;
 
+	private volatile Matcher matcher;
+
 	private final boolean negated;
 
 	private final SchemeTerm[] terms;
@@ -165,6 +167,15 @@ public class Scheme implements SchemeTerm, Iterable<Scheme> {
 		return terms.length;
 	}
 
+	/**
+	 * Returns this scheme compiled for matching, compiling it only once.
+	 */
+	public final Matcher getMatcher() {
+		if (null == matcher)
+			matcher = new Matcher(this);
+		return matcher;
+	}
+
 	public final String getIdentifier() {
 		return identifier;
 	}
@@ -261,7 +272,7 @@ public class Scheme implements SchemeTerm, Iterable<Scheme> {
 				((Scheme) term).getPlacemarkers(result);
 	}
 
-	private Placemarker[] placemarkers;
+	private volatile Placemarker[] placemarkers;
 
 	public final boolean hasPlacemarkers() {
 		return getPlacemarkers().length > 0;
@@ -0,0 +1,67 @@
+/**
+ *
+ */
+package xhail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+
+import xhail.core.Config;
+import xhail.core.Dialler;
+import xhail.core.entities.Grounding;
+import xhail.core.entities.Problem;
+
+/**
+ * Compares the ground size and solving time of the full and lean inductive
+ * encodings on every kernel of the first abductive iteration.
+ *
+ * Usage: Encodings &lt;gringo&gt; &lt;clasp&gt; &lt;files&gt;
+ *
+ * @author stefano
+ *
+ */
+public class Encodings {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3) {
+			System.err.println("Usage: Encodings <gringo> <clasp> <files>");
+			System.exit(1);
+		}
+		Path middle = Files.createTempFile("xhail", ".tmp");
+		middle.toFile().deleteOnExit();
+		System.out.println("Problem,Encoding,Kernels,Ground,Grounding,Solving");
+		for (int i = 2; i < args.length; i++)
+			for (boolean lean : new boolean[] { false, true }) {
+				Config config = new Config.Builder().setGringo(args[0]).setClasp(args[1]).setLean(lean).setMute(true).build();
+				Problem problem = new Problem.Builder(config).parse(Paths.get(args[i])).build();
+				int kernels = 0;
+				long size = 0L, grounding = 0L, solving = 0L;
+				for (Collection<String> output : new Dialler.Builder(config, problem).build().execute(0).getValue()) {
+					Grounding current = new Grounding.Builder(problem).parse(output).build();
+					if (!current.needsInduction())
+						continue;
+					kernels += 1;
+					long time = System.nanoTime();
+					Process gringo = new ProcessBuilder(args[0]).redirectOutput(Redirect.to(middle.toFile())).start();
+					current.save(0, gringo.getOutputStream());
+					gringo.waitFor();
+					grounding += System.nanoTime() - time;
+					size += Files.size(middle);
+					time = System.nanoTime();
+					Process clasp = new ProcessBuilder(args[1], middle.toString(), "--opt-mode=optN").start();
+					InputStream stream = clasp.getInputStream();
+					while (stream.read() >= 0)
+						;
+					clasp.waitFor();
+					solving += System.nanoTime() - time;
+				}
+				System.out.format("%s,%s,%d,%d,%.3f,%.3f\n", args[i], lean ? "lean" : "full", kernels, size, grounding / 1e9, solving / 1e9);
+			}
+	}
+
+}
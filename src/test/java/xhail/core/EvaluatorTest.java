@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package xhail.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author stefano
+ *
+ */
+public class EvaluatorTest {
+
+	private static Evaluator evaluate(String... statements) {
+		return new Evaluator.Builder().addStatements(statements).build();
+	}
+
+	@Test
+	public void testArities() {
+		Evaluator evaluator = evaluate("p(1).", "p(3,4).", "q(X):-p(X).", "r(X,Y):-p(X,Y).");
+		assertTrue("q(1) must hold", evaluator.holds("q", "1"));
+		assertFalse("q(3) must not hold: p(3,4) is not p/1", evaluator.holds("q", "3"));
+		assertTrue("r(3,4) must hold", evaluator.holds("r", "3", "4"));
+		assertFalse("r(1,1) must not hold: p(1) is not p/2", evaluator.holds("r", "1", "1"));
+		assertFalse("q/2 must not exist", evaluator.holds("q", "3", "4"));
+	}
+
+	@Test
+	public void testNegationThroughRecursion() {
+		Evaluator evaluator = evaluate("d(1).", "d(2).", "p(X):-d(X),not q(X).", "q(X):-d(X),not p(X).", "r(X):-p(X).", "s(X):-d(X),not r(X).",
+				"t(X):-d(X).");
+		for (String name : new String[] { "p", "q", "r", "s" })
+			assertTrue(name + " must be left to gringo", evaluator.isOpen(name));
+		assertEquals("only the rules of open predicates must be left", 4, evaluator.getRemainder().length);
+		assertFalse("open predicates must not be materialised", evaluator.holds("p", "1"));
+		assertFalse("t must be materialised", evaluator.isOpen("t"));
+		assertTrue("t(2) must hold", evaluator.holds("t", "2"));
+	}
+
+	@Test
+	public void testPools() {
+		Evaluator evaluator = evaluate("x(a;b;\"c;d\").", "t(0..2).", "p(t(1..2)).", "q(X):-x(X).", "r(X):-t(X).", "s(X):-p(X).");
+		assertFalse("pools of facts must be materialised", evaluator.isOpen("q"));
+		assertTrue("q(b) must hold", evaluator.holds("q", "b"));
+		assertTrue("q(\"c;d\") must hold", evaluator.holds("q", "\"c;d\""));
+		assertFalse("ranges of facts must be materialised", evaluator.isOpen("r"));
+		assertTrue("r(2) must hold", evaluator.holds("r", "2"));
+		assertFalse("r(3) must not hold", evaluator.holds("r", "3"));
+		assertTrue("ranges within terms must be left to gringo", evaluator.isOpen("s"));
+	}
+
+	@Test
+	public void testQuoted() {
+		Evaluator evaluator = evaluate("p(\"a b\").", "p(\"x.y,(z\").", "p(f(\"c\")).", "q(X):-p(X).");
+		assertTrue("q(\"a b\") must hold", evaluator.holds("q", "\"a b\""));
+		assertTrue("q(\"x.y,(z\") must hold", evaluator.holds("q", "\"x.y,(z\""));
+		assertTrue("q(f(\"c\")) must hold", evaluator.holds("q", "f(\"c\")"));
+		assertFalse("q(c) must not hold: c is not quoted", evaluator.holds("q", "c"));
+		assertTrue("quoted terms must be rendered as they are", Arrays.asList(evaluator.getFacts()).contains("q(\"x.y,(z\")."));
+	}
+
+	@Test
+	public void testRecursion() {
+		Evaluator evaluator = evaluate("edge(1,2).", "edge(2,3).", "edge(3,4).", "path(X,Y):-edge(X,Y).", "path(X,Z):-edge(X,Y),path(Y,Z).");
+		assertFalse("path must be materialised", evaluator.isOpen("path"));
+		assertTrue("path(1,4) must hold", evaluator.holds("path", "1", "4"));
+		assertFalse("path(4,1) must not hold", evaluator.holds("path", "4", "1"));
+		int paths = 0;
+		for (String fact : evaluator.getFacts())
+			if (fact.startsWith("path("))
+				paths += 1;
+		assertEquals("the transitive closure of 3 edges must have 6 paths", 6, paths);
+		assertEquals("no rule must be left", 0, evaluator.getRemainder().length);
+	}
+
+	@Test
+	public void testStratified() {
+		Evaluator evaluator = evaluate("node(1).", "node(2).", "node(3).", "node(4).", "edge(1,2).", "edge(2,3).", "start(1).", "reach(X):-start(X).",
+				"reach(Y):-reach(X),edge(X,Y).", "unreach(X):-node(X),not reach(X).");
+		assertFalse("unreach must be materialised", evaluator.isOpen("unreach"));
+		assertTrue("reach(3) must hold", evaluator.holds("reach", "3"));
+		assertFalse("unreach(3) must not hold", evaluator.holds("unreach", "3"));
+		assertTrue("unreach(4) must hold", evaluator.holds("unreach", "4"));
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package xhail.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.entities.Problem;
+import xhail.core.terms.Atom;
+import xhail.core.terms.Clause;
+import xhail.core.terms.Literal;
+import xhail.core.terms.Placemarker;
+import xhail.core.terms.Placemarker.Type;
+import xhail.core.terms.Variable;
+
+/**
+ * @author stefano
+ *
+ */
+public class ScorerTest {
+
+	private static Problem problem;
+
+	private static Scorer scorer;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		String source = "#modeh e(+x).\n#modeb p(+x).\n#modeb not q(+x).\nx(1..6).\nr(6).\n";
+		problem = new Problem.Builder(new Config.Builder().setMute(true).build())
+				.parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+		// e(V1):-p(V1),not q(V1).
+		Variable v1 = new Variable.Builder("V1").setType(new Placemarker.Builder("x").setType(Type.INPUT).build()).build();
+		Clause clause = new Clause.Builder().setHead(new Atom.Builder("e").addTerm(v1).build()) //
+				.addLiteral(new Literal.Builder(new Atom.Builder("p").addTerm(v1).build()).build()) //
+				.addLiteral(new Literal.Builder(new Atom.Builder("q").addTerm(v1).build()).setNegated(true).build()) //
+				.build();
+		scorer = new Scorer.Builder(problem).addClause(clause).build();
+	}
+
+	private static Path write(String content) throws Exception {
+		Path result = Files.createTempFile("xhail", ".lp");
+		result.toFile().deleteOnExit();
+		Files.write(result, content.getBytes(StandardCharsets.UTF_8));
+		return result;
+	}
+
+	@Test
+	public void testBodiless() throws Exception {
+		// e(V1).
+		Variable v1 = new Variable.Builder("V1").setType(new Placemarker.Builder("x").setType(Type.INPUT).build()).build();
+		Clause clause = new Clause.Builder().setHead(new Atom.Builder("e").addTerm(v1).build()).build();
+		Path path = write("p(1).\n#example e(1).\n#example not e(7).\n");
+		Scorer.Score score = new Scorer.Builder(problem).addClause(clause).build().score(path);
+		assertEquals("clauses without a body must be scored", 0, score.getUnscored());
+		assertEquals("e(1) must be a true positive", 1, score.getTruePositives());
+		assertEquals("not e(7) must be a true negative: 7 is not of type x", 1, score.getTrueNegatives());
+	}
+
+	@Test
+	public void testCounts() throws Exception {
+		Path path = write("% facts. of the test set\np(1). p(2).\np(3). q(3).\np(4).\n" //
+				+ "#example e(1).\n#example e(2).\n#example e(5).\n" //
+				+ "#example not e(3).\n#example not e(4).\n#example not e(6).\n");
+		Scorer.Score score = scorer.score(path);
+		assertFalse("the test set must be read", score.hasError());
+		assertEquals("e(1) and e(2) must be true positives", 2, score.getTruePositives());
+		assertEquals("e(5) must be a false negative", 1, score.getFalseNegatives());
+		assertEquals("not e(3) and not e(6) must be true negatives", 2, score.getTrueNegatives());
+		assertEquals("not e(4) must be a false positive", 1, score.getFalsePositives());
+		assertEquals("every fact must be counted", 5, score.getStatements());
+		assertEquals("2 of 3 positive examples must be covered", 2.0 / 3.0, score.getCoverage(), 1e-9);
+		assertEquals("4 of 6 examples must be covered", 4.0 / 6.0, score.getAccuracy(), 1e-9);
+	}
+
+	@Test
+	public void testError() throws Exception {
+		Path path = write("");
+		Files.delete(path);
+		Scorer.Score score = scorer.score(path);
+		assertTrue("a missing test set must not be scored", score.hasError());
+		assertEquals("a missing test set must have no counts", 0, score.getTruePositives() + score.getFalseNegatives());
+		assertTrue("a missing test set must have no accuracy", Double.isNaN(score.getAccuracy()));
+	}
+
+	@Test
+	public void testUnscored() throws Exception {
+		Path path = write("p(1).\n{ q(1) }.\n#example e(1).\n#example not e(2).\n");
+		Scorer.Score score = scorer.score(path);
+		assertEquals("examples depending on a choice must not be scored", 2, score.getUnscored());
+		assertTrue("no example must be scored", Double.isNaN(score.getAccuracy()));
+	}
+
+}
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.Config;
+
+/**
+ * @author stefano
+ *
+ */
+public class CheckpointTest {
+
+	private static final List<String> FIRST = Arrays.asList("bird(a)", "abduced_flies(a)");
+
+	private static final List<String> SECOND = Arrays.asList("bird(a)", "penguin(a)", "abduced_flies(a)");
+
+	private static final List<String> THIRD = Arrays.asList("bird(a)", "bird(b)", "abduced_flies(b)");
+
+	private static Problem problem;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		problem = problem("#modeh flies(+bird).\n#modeb penguin(+bird).\n#example flies(a).\n");
+	}
+
+	private static Problem problem(String source) {
+		return new Problem.Builder(new Config.Builder().setMute(true).build()).parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+	}
+
+	private static Set<Collection<String>> sets(List<Collection<String>> models) {
+		Set<Collection<String>> result = new HashSet<>();
+		for (Collection<String> model : models)
+			result.add(new HashSet<>(model));
+		return result;
+	}
+
+	private static Path temp() throws Exception {
+		Path result = Files.createTempFile("xhail", ".ckp");
+		result.toFile().deleteOnExit();
+		return result;
+	}
+
+	@Test
+	public void testMovedAside() throws Exception {
+		Path path = temp();
+		Path aside = path.resolveSibling(path.getFileName() + ".old");
+		aside.toFile().deleteOnExit();
+		try (Checkpoint.Writer writer = new Checkpoint.Writer(problem, path, null)) {
+			assertTrue("the checkpoint must be saved", writer.save(new Checkpoint.Builder(problem).setIter(3).build()));
+		}
+		byte[] saved = Files.readAllBytes(path);
+		Problem other = problem("#modeh flies(+bird).\n#modeb penguin(+bird).\n#example flies(b).\n");
+		assertNull("a checkpoint of another search must not be resumed", Checkpoint.load(other, path));
+		new Checkpoint.Writer(other, path, null).close();
+		assertArrayEquals("a checkpoint that is not resumed must be moved aside", saved, Files.readAllBytes(aside));
+		assertEquals("the new checkpoint must belong to the new search", "% xhail checkpoint " + Checkpoint.key(other), Files.readAllLines(path).get(0));
+	}
+
+	@Test
+	public void testTornTail() throws Exception {
+		Path path = temp();
+		try (Checkpoint.Writer writer = new Checkpoint.Writer(problem, path, null)) {
+			writer.save(new Checkpoint.Builder(problem).setIter(1).setValues(new Values("3")).addRefinements(Arrays.asList("r1")).addTried(FIRST).build());
+			writer.save(new Checkpoint.Builder(problem).setIter(1).setValues(new Values("2 1")).addRefinements(Arrays.asList("r1", "r2")).addTried(FIRST)
+					.addTried(SECOND).setPending(new Values("4"), 1).addPending(THIRD).build());
+		}
+		long length = Files.size(path);
+		try (Checkpoint.Writer writer = new Checkpoint.Writer(problem, path, Checkpoint.load(problem, path))) {
+			writer.save(new Checkpoint.Builder(problem).setIter(2).setValues(new Values("1 1")).addRefinements(Arrays.asList("r1", "r2", "r3")).addTried(FIRST)
+					.addTried(SECOND).addTried(THIRD).build());
+		}
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, (int) (length + bytes.length) / 2));
+
+		Checkpoint checkpoint = Checkpoint.load(problem, path);
+		assertEquals("the last complete save must be resumed", 1, checkpoint.getIter());
+		assertEquals("the values of the last complete save must be resumed", new Values("2 1"), checkpoint.getValues());
+		assertEquals("the refinements must be resumed", new HashSet<>(Arrays.asList("r1", "r2")), checkpoint.getRefinements());
+		assertEquals("the models tried must be resumed", sets(Arrays.<Collection<String>> asList(FIRST, SECOND)), sets(checkpoint.getTried()));
+		assertEquals("the values of the interrupted call must be resumed", new Values("4"), checkpoint.getAbduced());
+		assertEquals("the size of the interrupted call must be resumed", 1, checkpoint.getSize());
+		assertEquals("the pending models must be resumed", sets(Arrays.<Collection<String>> asList(THIRD)), sets(checkpoint.getPending()));
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.Config;
+
+/**
+ * @author stefano
+ *
+ */
+public class ProblemTest {
+
+	private static Problem problem;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		String source = "#modeh flies(+bird).\n#modeb penguin(+bird).\n#example flies(a).\n";
+		problem = new Problem.Builder(new Config.Builder().setMute(true).build()).parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)))
+				.build();
+	}
+
+	@Test
+	public void testSlice() {
+		String source = "#modeh flies(+bird).\n#modeb penguin(+bird).\n#example flies(a).\nbird(a).\npenguin(X):-emperor(X).\n" //
+				+ "colour(a,red).\nnest(X):-colour(X,red).\np:-not p.\nq:-r,not s.\ns:-q.\n";
+		Problem whole = new Problem.Builder(new Config.Builder().setMute(true).build())
+				.parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+		assertEquals("the background must not be sliced without --slice", Arrays.asList(whole.getBackground()), Arrays.asList(whole.getSlice()));
+		Problem sliced = new Problem.Builder(new Config.Builder().setMute(true).setSlice(true).build())
+				.parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+		List<String> slice = Arrays.asList(sliced.getSlice());
+		assertTrue("rules reaching the modes must be kept", slice.contains("penguin(X):-emperor(X)."));
+		assertFalse("rules not reaching the modes must be left out", slice.contains("nest(X):-colour(X,red)."));
+		assertFalse("facts not reaching the modes must be left out", slice.contains("colour(a,red)."));
+		assertTrue("rules on an odd loop must be kept", slice.contains("p:-not p."));
+		assertTrue("rules on a cycle through negation must be kept", slice.contains("q:-r,not s.") && slice.contains("s:-q."));
+	}
+
+	@Test
+	public void testSignature() {
+		assertEquals("models differing only in atoms outside the modes must have the same signature",
+				problem.getSignature(Arrays.asList("bird(a)", "penguin(b)", "abduced_flies(a)", "colour(a,red)")),
+				problem.getSignature(Arrays.asList("bird(a)", "penguin(b)", "abduced_flies(a)", "colour(a,blue)", "nest(b)")));
+		assertFalse("models differing in a mode atom must have different signatures",
+				problem.getSignature(Arrays.asList("bird(a)", "abduced_flies(a)")).equals(problem.getSignature(Arrays.asList("bird(a)", "penguin(a)", "abduced_flies(a)"))));
+		assertFalse("models differing in an abduced atom must have different signatures",
+				problem.getSignature(Arrays.asList("bird(a)", "bird(b)", "penguin(a)", "abduced_flies(a)"))
+						.equals(problem.getSignature(Arrays.asList("bird(a)", "bird(b)", "penguin(a)", "abduced_flies(b)"))));
+		assertEquals("models differing only by a renaming of constants must have the same signature",
+				problem.getSignature(Arrays.asList("bird(a)", "bird(b)", "penguin(a)", "abduced_flies(b)")),
+				problem.getSignature(Arrays.asList("bird(c)", "bird(d)", "penguin(d)", "abduced_flies(c)")));
+	}
+
+	@Test
+	public void testSignatureConstants() {
+		String source = "#modeh flies(+bird).\n#modeb colour(+bird,$colour).\n#example flies(a).\n";
+		Problem problem = new Problem.Builder(new Config.Builder().setMute(true).build())
+				.parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+		assertEquals("constants out of constant placemarkers must be renamed",
+				problem.getSignature(Arrays.asList("bird(a)", "colour(red)", "colour(a,red)", "abduced_flies(a)")),
+				problem.getSignature(Arrays.asList("bird(b)", "colour(red)", "colour(b,red)", "abduced_flies(b)")));
+		assertFalse("constants at constant placemarkers must not be renamed",
+				problem.getSignature(Arrays.asList("bird(a)", "colour(red)", "colour(a,red)", "abduced_flies(a)"))
+						.equals(problem.getSignature(Arrays.asList("bird(a)", "colour(blue)", "colour(a,blue)", "abduced_flies(a)"))));
+	}
+
+}
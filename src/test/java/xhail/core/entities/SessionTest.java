@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.Config;
+import xhail.core.Finder;
+import xhail.core.parser.Parser;
+import xhail.core.terms.Clause;
+
+/**
+ * Needs <code>gringo</code> and <code>clasp</code> 3 on the path.
+ *
+ * @author stefano
+ *
+ */
+public class SessionTest {
+
+	private static final String PROBLEM = "#modeh e(+x).\n#modeb p(+x).\n#modeb q(+x).\n#modeb r(+x).\n" //
+			+ "x(a;b;c;d).\np(a).\nq(a).\np(d).\nq(b).\nr(c).\n" //
+			+ "#example e(a).\n#example not e(d).\n";
+
+	private static final String UNGUARDED = "#modeh e(+x).\n#modeb p(+x).\n" //
+			+ "x(a;b;c).\np(a).\n" //
+			+ "#example e(a).\n#example e(b).\n";
+
+	private static Config config;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Finder finder = new Finder(" 3.", "gringo", "clasp");
+		for (String path : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+			if (!path.isEmpty())
+				finder.find(Paths.get(path), false);
+		if (finder.isFound())
+			config = new Config.Builder().setMute(true).setGringo(finder.get("gringo").toString()).setClasp(finder.get("clasp").toString()).build();
+	}
+
+	private static Session session(String source) {
+		assumeTrue("gringo and clasp 3 are needed", null != config);
+		Problem problem = new Problem.Builder(config).parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))).build();
+		Session session = new Session(problem);
+		Answers answers = session.solve();
+		assertTrue("the first examples must be explained", !answers.isEmpty() && answers.getAnswer(0).isMeaningful());
+		return session;
+	}
+
+	@Test
+	public void testCovered() {
+		// the smallest hypothesis for the first examples is e(V1):-q(V1).
+		Session session = session(PROBLEM);
+		Clause[] before = session.getAnswers().getAnswer(0).getHypotheses();
+		Answer answer = session.addExample(Parser.parseExample("e(b)")).getAnswer(0);
+		assertArrayEquals("hypotheses covering the new example must be kept", before, answer.getHypotheses());
+		assertFalse("every example must be covered", answer.hasUncovered());
+	}
+
+	@Test
+	public void testBodiless() {
+		// the smallest hypothesis for the first examples is e(V1).
+		Session session = session(UNGUARDED);
+		Answers before = session.getAnswers();
+		Answers answers = session.addExample(Parser.parseExample("e(c)"));
+		assertArrayEquals("hypotheses without a body must be checked as well", before.getAnswer(0).getHypotheses(), answers.getAnswer(0).getHypotheses());
+		assertFalse("every example must be covered", answers.getAnswer(0).hasUncovered());
+	}
+
+	@Test
+	public void testGeneralisation() {
+		Session session = session(PROBLEM);
+		Answer answer = session.addExample(Parser.parseExample("not e(b)")).getAnswer(0);
+		assertEquals("the previous generalisation must be induced again", 1, answer.getHypotheses().length);
+		String hypothesis = answer.getHypotheses()[0].toString();
+		assertTrue("e(b) must be ruled out by p(V1): " + hypothesis, hypothesis.contains("p(V1)") && hypothesis.contains("q(V1)"));
+		assertFalse("every example must be covered", answer.hasUncovered());
+	}
+
+	@Test
+	public void testSearch() {
+		Session session = session(PROBLEM);
+		Answer answer = session.addExample(Parser.parseExample("e(c)")).getAnswer(0);
+		boolean found = false;
+		for (Clause clause : answer.getHypotheses())
+			found |= clause.toString().contains("r(V1)");
+		assertTrue("e(c) can only be explained by a new search", found);
+		assertFalse("every example must be covered", answer.hasUncovered());
+	}
+
+}
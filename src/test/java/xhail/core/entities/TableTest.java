@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package xhail.core.entities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.Config;
+import xhail.core.parser.Parser;
+import xhail.core.terms.Atom;
+import xhail.core.terms.SchemeTerm;
+
+/**
+ * @author stefano
+ *
+ */
+public class TableTest {
+
+	private static Problem problem;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		String source = "#modeh flies(+bird).\n#modeb penguin(+bird).\n#modeb not penguin(+bird).\n#example flies(a).\n";
+		problem = new Problem.Builder(new Config.Builder().setMute(true).build()).parse(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)))
+				.build();
+	}
+
+	private static Set<Atom> facts(Collection<String> output) {
+		Set<Atom> result = new HashSet<>();
+		for (String token : output)
+			if (!token.startsWith("abduced_"))
+				result.add(Parser.parseToken(token));
+		return result;
+	}
+
+	@Test
+	public void testLookup() {
+		List<String> first = Arrays.asList("bird(a)", "bird(b)", "penguin(b)", "abduced_flies(a)");
+		// a new type fact can widen what the shared facts are looked up for
+		List<String> second = Arrays.asList("bird(a)", "bird(b)", "bird(c)", "penguin(b)", "penguin(c)", "abduced_flies(a)");
+		List<String> third = Arrays.asList("bird(a)", "bird(b)", "penguin(a)", "penguin(b)", "abduced_flies(b)");
+		Table table = new Table(problem, Arrays.asList(first, second, third));
+		for (List<String> output : Arrays.asList(first, second, third)) {
+			Set<Atom> facts = facts(output);
+			assertEquals("the table must look up the same facts as the schemes: " + output,
+					SchemeTerm.lookup(problem.getModeHs(), problem.getModeBs(), facts), table.lookup(facts));
+		}
+	}
+
+}
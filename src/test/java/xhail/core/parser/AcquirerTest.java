@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package xhail.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import xhail.core.entities.Values;
+
+/**
+ * @author stefano
+ *
+ */
+public class AcquirerTest {
+
+	/**
+	 * Models with the same cost: the second and the fourth are close to the
+	 * first, the third is far from both.
+	 */
+	private static final String OUTPUT = "abduced_p(1) Optimization: 1\n" //
+			+ "abduced_p(1) abduced_p(2) Optimization: 1\n" //
+			+ "abduced_p(3) Optimization: 1\n" //
+			+ "abduced_p(1) q(4) Optimization: 1\n" //
+			+ "OPTIMUM FOUND\n";
+
+	private static Set<Set<String>> parse(String output, int sample) {
+		Map.Entry<Values, Collection<Collection<String>>> entry = Acquirer.from(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)))
+				.setSample(sample).parse();
+		Set<Set<String>> result = new HashSet<>();
+		for (Collection<String> model : entry.getValue())
+			result.add(new HashSet<>(model));
+		return result;
+	}
+
+	private static Set<String> set(String... tokens) {
+		return new HashSet<>(Arrays.asList(tokens));
+	}
+
+	@Test
+	public void testAll() {
+		assertEquals("without sampling every model must be kept", 4, parse(OUTPUT, 0).size());
+	}
+
+	@Test
+	public void testBetter() {
+		Set<Set<String>> models = parse("abduced_p(1) abduced_p(2) Optimization: 2\nabduced_p(3) Optimization: 1\nabduced_p(4) Optimization: 1\nOPTIMUM FOUND\n", 1);
+		assertEquals("a better cost must restart the sample", Collections.singleton(set("abduced_p(3)")), models);
+	}
+
+	@Test
+	public void testSample() {
+		Set<Set<String>> models = parse(OUTPUT, 2);
+		assertEquals("the sample must not exceed its limit", 2, models.size());
+		assertTrue("the first model must be kept", models.contains(set("abduced_p(1)")));
+		assertTrue("the farthest model must be kept", models.contains(set("abduced_p(3)")));
+	}
+
+	@Test
+	public void testSingle() {
+		assertEquals("a sample of one must keep the first model", Collections.singleton(set("abduced_p(1)")), parse(OUTPUT, 1));
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ *
+ */
+package xhail.core.terms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import xhail.core.terms.Placemarker.Type;
+
+/**
+ * @author stefano
+ *
+ */
+public class ClauseTest {
+
+	private static final String P = "p";
+
+	private static final String Q = "q";
+
+	private static final String R = "r";
+
+	private static Variable v1, v2, v3, v4;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Placemarker type = new Placemarker.Builder("t").setType(Type.INPUT).build();
+		v1 = new Variable.Builder("V1").setType(type).build();
+		v2 = new Variable.Builder("V2").setType(type).build();
+		v3 = new Variable.Builder("V3").setType(type).build();
+		v4 = new Variable.Builder("V4").setType(type).build();
+	}
+
+	private static Literal literal(String identifier, int level, Term... terms) {
+		return new Literal.Builder(new Atom.Builder(identifier).addTerms(terms).build()).setLevel(level).build();
+	}
+
+	@Test
+	public void testReduce() {
+		// p(V1):-q(V1,V2),q(V1,V3),q(V1,V4),r(V3).
+		Clause clause = new Clause.Builder().setHead(new Atom.Builder(P).addTerm(v1).build()) //
+				.addLiteral(literal(Q, 1, v1, v2)) //
+				.addLiteral(literal(Q, 1, v1, v3)) //
+				.addLiteral(literal(Q, 1, v1, v4)) //
+				.addLiteral(literal(R, 2, v3)) //
+				.build();
+		Clause reduced = clause.reduce();
+		assertEquals("q(V1,V4) must be removed", 3, reduced.getSize());
+		assertEquals("q(V1,V2) must be kept", literal(Q, 1, v1, v2), reduced.getBody(1));
+		assertEquals("q(V1,V3) must be kept", literal(Q, 1, v1, v3), reduced.getBody(2));
+		assertEquals("r(V3) must be kept", literal(R, 2, v3), reduced.getBody(3));
+		assertEquals("reduced clauses must stay the same", reduced, reduced.reduce());
+	}
+
+	@Test
+	public void testVariant() {
+		// p(V1):-q(V1,V2),r(V2). and p(V1):-r(V3),q(V1,V3).
+		Clause clause1 = new Clause.Builder().setHead(new Atom.Builder(P).addTerm(v1).build()) //
+				.addLiteral(literal(Q, 1, v1, v2)) //
+				.addLiteral(literal(R, 2, v2)) //
+				.build();
+		Clause clause2 = new Clause.Builder().setHead(new Atom.Builder(P).addTerm(v1).build()) //
+				.addLiteral(literal(R, 2, v3)) //
+				.addLiteral(literal(Q, 1, v1, v3)) //
+				.build();
+		Clause clause3 = new Clause.Builder().setHead(new Atom.Builder(P).addTerm(v1).build()) //
+				.addLiteral(literal(Q, 1, v1, v2)) //
+				.addLiteral(literal(R, 2, v1)) //
+				.build();
+		assertTrue("clauses must be variants", clause1.isVariant(clause2));
+		assertTrue("variants must be symmetric", clause2.isVariant(clause1));
+		assertFalse("clauses must not be variants", clause1.isVariant(clause3));
+	}
+
+}